@@ -0,0 +1,323 @@
+package homework1;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A BatchDirections computes the directions of many routes in parallel, in
+ * every mode of a DirectionsPipeline, and delivers them to a sink in the
+ * order of the routes. BatchDirections are immutable, and thread-safe if
+ * their formatters are.
+ * <p>
+ * Routes are taken from an Iterator in batches of at most
+ * <tt>batchSize</tt>. A batch is formatted on a ForkJoinPool, each worker
+ * thread writing into StringBuilders it keeps for every route of every
+ * run, and then handed to the sink route by route, on the calling thread.
+ * Formatting and delivery overlap: while the sink accepts batch i, the
+ * workers format batch i+1, and batch i+2 is taken from the Iterator only
+ * after the sink has accepted batch i. A slow sink therefore slows down
+ * the reading of routes, and at most <tt>2 * batchSize</tt> routes and
+ * their directions are held at any time, however many routes there are.
+ * A larger batch keeps the workers busier; a smaller one bounds memory
+ * more tightly.
+ * <p>
+ * Routes can also be given as lists of edge ids of a RoadNetwork, in which
+ * case the routes are built by the workers too.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   pipeline : DirectionsPipeline   // the modes to render
+ *   pool : ForkJoinPool             // runs the formatting
+ *   batchSize : int                 // the most routes held at once
+ * </pre>
+ **/
+public class BatchDirections {
+
+	/** The batch size of BatchDirections built without one. **/
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+
+	private final DirectionsPipeline pipeline;
+	private final ForkJoinPool pool;
+	private final int batch_size;
+	private final ThreadLocal<StringBuilder[]> buffers;	// one per mode, per worker
+
+	// Abs. Function for every BatchDirections b:
+	// b.pipeline = pipeline, b.pool = pool, b.batchSize = batch_size
+
+	// Rep. Invariant for every BatchDirections b:
+	// b.pipeline != null && b.pool != null && b.batch_size > 0 &&
+	// every b.buffers.get() holds pipeline.modeCount() StringBuilders
+
+	/**
+	 * Receives the directions of the routes of a batch run, in the order of
+	 * the routes.
+	 **/
+	public interface Sink {
+
+		/**
+		 * Receives the directions of one route.
+		 * @param index the position of the route in the input, from 0
+		 * @param directions the directions of the route, one String per
+		 *        mode of the pipeline
+		 * @throws IOException if the directions can not be delivered; the
+		 *         run stops and throws it
+		 **/
+		void accept(long index, String[] directions) throws IOException;
+	}
+
+	/**
+	 * The figures of one batch run. Statistics are immutable.
+	 **/
+	public static final class Statistics {
+
+		private final long routes, characters, batches, nanos;
+
+		private Statistics(long routes, long characters, long batches, long nanos) {
+			this.routes = routes;
+			this.characters = characters;
+			this.batches = batches;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * Returns the number of routes formatted.
+		 * @return the number of routes formatted
+		 **/
+		public long getRoutes() {
+			return routes;
+		}
+
+		/**
+		 * Returns the number of characters delivered to the sink.
+		 * @return the total length of the directions, in every mode
+		 **/
+		public long getCharacters() {
+			return characters;
+		}
+
+		/**
+		 * Returns the number of batches.
+		 * @return the number of batches the routes were formatted in
+		 **/
+		public long getBatches() {
+			return batches;
+		}
+
+		/**
+		 * Returns the duration of the run.
+		 * @return the time the run took, in nanoseconds, sink included
+		 **/
+		public long getElapsedNanos() {
+			return nanos;
+		}
+
+		/**
+		 * Returns the throughput of the run.
+		 * @return routes per second of the run, or 0 if it took no time
+		 **/
+		public double routesPerSecond() {
+			return (nanos == 0) ? 0 : routes * 1e9 / nanos;
+		}
+
+		/**
+		 * Returns a string representation of this.
+		 * @return a string representation of this.
+		 **/
+		public String toString() {
+			return routes + " routes, " + characters + " characters in " + batches + " batches, "
+					+ (nanos / 1000000) + " ms (" + Math.round(routesPerSecond()) + " routes/s)";
+		}
+	}
+
+	/**
+	 * Constructs a BatchDirections for the specified formatters, on the
+	 * common ForkJoinPool with the default batch size.
+	 * @requires formatters != null && formatters does not contain null
+	 * @effects constructs a new BatchDirections b with b.pipeline = new
+	 *          DirectionsPipeline(formatters), b.pool = the common pool and
+	 *          b.batchSize = DEFAULT_BATCH_SIZE
+	 **/
+	public BatchDirections(RouteFormatter... formatters) {
+		this(new DirectionsPipeline(formatters), ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructs a BatchDirections.
+	 * @requires pipeline != null && pool != null
+	 * @effects constructs a new BatchDirections b with b.pipeline =
+	 *          pipeline, b.pool = pool and b.batchSize = batchSize
+	 * @throws IllegalArgumentException if batchSize <= 0
+	 **/
+	public BatchDirections(DirectionsPipeline pipeline, ForkJoinPool pool, int batchSize) {
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("batch size " + batchSize);
+		this.pipeline = pipeline;
+		this.pool = pool;
+		this.batch_size = batchSize;
+		int modes = pipeline.modeCount();
+		buffers = ThreadLocal.withInitial(() -> {
+			StringBuilder[] outs = new StringBuilder[modes];
+			for (int m = 0; m < modes; ++m)
+				outs[m] = new StringBuilder(256);
+			return outs;
+		});
+	}
+
+	/**
+	 * Formats routes and delivers their directions.
+	 * @requires routes != null && routes does not return null &&
+	 *           0 <= heading < 360 && sink != null
+	 * @modifies routes
+	 * @effects calls sink.accept(i, this.pipeline.computeDirections(r, heading))
+	 *          for the i-th route r returned by routes, for every i in
+	 *          increasing order, until routes is exhausted
+	 * @return the figures of the run
+	 * @throws IOException if the sink throws it; the routes after the one
+	 *         it was thrown for are not formatted
+	 **/
+	public Statistics run(Iterator<Route> routes, double heading, Sink sink) throws IOException {
+		return process(routes, Function.identity(), heading, sink);
+	}
+
+	/**
+	 * Formats routes and delivers their directions.
+	 * @requires routes != null && routes does not contain null &&
+	 *           0 <= heading < 360 && sink != null
+	 * @effects as run(routes.iterator(), heading, sink); the stream is
+	 *          consumed sequentially, batch by batch
+	 * @return the figures of the run
+	 * @throws IOException if the sink throws it
+	 **/
+	public Statistics run(Stream<Route> routes, double heading, Sink sink) throws IOException {
+		return run(routes.iterator(), heading, sink);
+	}
+
+	/**
+	 * Formats routes given as edge ids of a network and delivers their
+	 * directions.
+	 * @requires network != null && paths != null && every element of
+	 *           paths is a non-empty array of edge ids of network, each
+	 *           edge starting where the one before it ends &&
+	 *           0 <= heading < 360 && sink != null
+	 * @modifies paths
+	 * @effects as run() for the routes made of the edges of each path, in
+	 *          order
+	 * @return the figures of the run
+	 * @throws IOException if the sink throws it
+	 * @throws IllegalArgumentException if a path is empty or its edges are
+	 *         not contiguous
+	 **/
+	public Statistics run(RoadNetwork network, Iterator<int[]> paths, double heading, Sink sink)
+			throws IOException {
+		return process(paths, path -> {
+			if (path.length == 0)
+				throw new IllegalArgumentException("empty path");
+			RouteBuilder builder = new RouteBuilder(path.length);
+			for (int edge : path)
+				builder.add(network.edgeSegment(edge));
+			return builder.build();
+		}, heading, sink);
+	}
+
+	/**
+	 * Formats routes and writes their directions to one output: for each
+	 * route in turn, its directions in every mode, in the order of the
+	 * modes.
+	 * @requires routes != null && routes does not return null &&
+	 *           0 <= heading < 360 && out != null
+	 * @modifies routes, out
+	 * @effects appends the directions of every route to out
+	 * @return the figures of the run
+	 * @throws IOException if appending to out fails
+	 **/
+	public Statistics run(Iterator<Route> routes, double heading, Appendable out) throws IOException {
+		return run(routes, heading, (index, directions) -> {
+			for (String text : directions)
+				out.append(text);
+		});
+	}
+
+	/**
+	 * Converts, formats and delivers items batch by batch, formatting each
+	 * batch while the one before it is delivered.
+	 **/
+	private <T> Statistics process(Iterator<T> items, Function<? super T, Route> toRoute,
+								   double heading, Sink sink) throws IOException {
+		long start = System.nanoTime();
+		Object[][] batches = { new Object[batch_size], new Object[batch_size] };
+		String[][][] results = { new String[batch_size][], new String[batch_size][] };
+		long routes = 0, characters = 0, batch_count = 0;
+		int current = 0;
+		int size = fill(items, batches[current]);
+		ForkJoinTask<?> formatting = (size == 0) ? null
+				: format(batches[current], size, toRoute, heading, results[current]);
+		try {
+			while (formatting != null) {
+				formatting.join();
+				formatting = null;
+				++batch_count;
+				int next = 1 - current;
+				int next_size = fill(items, batches[next]);
+				if (next_size > 0)
+					formatting = format(batches[next], next_size, toRoute, heading, results[next]);
+				String[][] done = results[current];
+				for (int i = 0; i < size; ++i) {
+					for (String text : done[i])
+						characters += text.length();
+					sink.accept(routes++, done[i]);
+					done[i] = null;
+					batches[current][i] = null;
+				}
+				current = next;
+				size = next_size;
+			}
+		} finally {
+			// no formatting outlives the run, even if the sink throws
+			if (formatting != null)
+				formatting.quietlyJoin();
+		}
+		return new Statistics(routes, characters, batch_count, System.nanoTime() - start);
+	}
+
+	/**
+	 * Takes up to batch_size items.
+	 * @modifies items, batch
+	 * @return the number of items put at the start of batch
+	 **/
+	private <T> int fill(Iterator<T> items, Object[] batch) {
+		int count = 0;
+		while (count < batch_size && items.hasNext())
+			batch[count++] = items.next();
+		return count;
+	}
+
+	/**
+	 * Starts formatting the first size items of batch on the pool.
+	 * @return the task that puts the directions of batch[i] in results[i]
+	 **/
+	private <T> ForkJoinTask<?> format(Object[] batch, int size, Function<? super T, Route> toRoute,
+									   double heading, String[][] results) {
+		int modes = pipeline.modeCount();
+		return pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> {
+			@SuppressWarnings("unchecked")
+			Route route = toRoute.apply((T) batch[i]);
+			StringBuilder[] outs = buffers.get();
+			for (StringBuilder out : outs)
+				out.setLength(0);
+			try {
+				pipeline.computeDirections(route, heading, (Appendable[]) outs);
+			} catch (IOException e) {
+				throw new AssertionError(e);	// StringBuilder does not throw
+			}
+			String[] directions = new String[modes];
+			for (int m = 0; m < modes; ++m)
+				directions[m] = outs[m].toString();
+			results[i] = directions;
+		}));
+	}
+}
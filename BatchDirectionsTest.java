@@ -0,0 +1,71 @@
+package homework1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchDirectionsTest {
+
+	private RoadNetwork network;
+	private List<Route> catalogue;		// shortest routes between example points
+
+
+	public BatchDirectionsTest() {
+		network = ExampleGeoSegments.twoWayNetwork();
+		GeoPoint[] points = ExampleGeoSegments.points;
+		catalogue = new ArrayList<>();
+		for (int i = 0; i < 50; ++i) {
+			Route r = new Router(network).shortestRoute(points[i % points.length], points[(7 * i + 3) % points.length]);
+			if (r != null)
+				catalogue.add(r);
+		}
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("BatchDirections");
+		DirectionsPipeline both = new DirectionsPipeline(new WalkingRouteFormatter(), new DrivingRouteFormatter());
+		BatchDirections batches = new BatchDirections(both, new ForkJoinPool(4), 7);
+		List<String[]> delivered = new ArrayList<>();
+		List<Long> positions = new ArrayList<>();
+		try {
+			BatchDirections.Statistics stats = batches.run(catalogue.iterator(), 0, (position, directions) -> {
+				positions.add(position);
+				delivered.add(directions);
+			});
+			boolean batchMatches = delivered.size() == catalogue.size()
+				&& stats.getRoutes() == catalogue.size() && stats.getBatches() == (catalogue.size() + 6) / 7;
+			for (int i = 0; batchMatches && i < catalogue.size(); ++i)
+				batchMatches = positions.get(i) == i
+					&& Arrays.equals(delivered.get(i), both.computeDirections(catalogue.get(i), 0));
+			show("Batched directions arrive in input order and match the pipeline", batchMatches);
+			List<int[]> paths = new ArrayList<>();
+			for (int e = 0; e < network.edgeCount(); ++e)
+				paths.add(new int[] { e });
+			StringBuilder fromPaths = new StringBuilder(), expected = new StringBuilder();
+			batches.run(network, paths.iterator(), 0, (position, directions) -> fromPaths.append(directions[1]));
+			for (int e = 0; e < network.edgeCount(); ++e)
+				expected.append(new DrivingRouteFormatter().computeDirections(new Route(network.edgeSegment(e)), 0));
+			show("Routes given as edge ids are built and formatted", fromPaths.toString().equals(expected.toString()));
+		} catch (IOException e) {
+			show("Batched directions arrive in input order and match the pipeline", false);
+		}
+	}
+}
@@ -0,0 +1,720 @@
+package homework1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A ContractionHierarchy answers shortest-route queries over a RoadNetwork
+ * after a one-time preprocessing of the network. ContractionHierarchies are
+ * immutable and thread-safe.
+ * <p>
+ * Preprocessing ranks the nodes by importance and contracts them from the
+ * least important up. Contracting a node removes it from the remaining
+ * graph and adds a shortcut edge between two of its neighbors whenever the
+ * path through the node is the only shortest path between them (checked by
+ * a bounded "witness" search). A query then searches forward from the
+ * source and backward from the destination, following only edges that lead
+ * to more important nodes, which visits a tiny part of the network.
+ * Shortcuts remember the two edges they replace, so the path found is
+ * unpacked into the original GeoSegments and returned as a normal Route.
+ * <p>
+ * Nodes are contracted in rounds. Each round picks a set of nodes no two of
+ * which are adjacent, and the witness searches of the whole round, like the
+ * priority updates before it, run in parallel on a ForkJoinPool. The result
+ * can be saved with <tt>write()</tt> and loaded with <tt>read()</tt>, so it
+ * is computed once per dataset.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   network : RoadNetwork   // the network this hierarchy answers queries on
+ * </pre>
+ **/
+public class ContractionHierarchy {
+
+	private static final int MAGIC = 0x43480002;			// "CH", format 2
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+	private static final int NO_EDGE = -1;
+
+	private final RoadNetwork network;
+	private final int[] ranks;
+
+	// every edge of the hierarchy: an original edge of the network
+	// (edge_originals[e] >= 0) or a shortcut of two hierarchy edges
+	private final int[] edge_sources, edge_targets;
+	private final double[] edge_weights;
+	private final int[] edge_originals, edge_firsts, edge_seconds;
+
+	// upward edges leaving each node, and upward edges entering each node
+	// (stored reversed, for the backward search), in CSR form
+	private final int[] up_offsets, up_edges;
+	private final int[] down_offsets, down_edges;
+	private final int shortcut_count;
+
+	private final ThreadLocal<Router.SearchState[]> states;
+
+	// Abs. Function for every ContractionHierarchy h:
+	// h answers queries on h.network, where node i was contracted
+	// h.ranks[i]-th and edge e leads from h.edge_sources[e] to
+	// h.edge_targets[e] with length h.edge_weights[e], in millimeters
+
+	// Rep. Invariant for every ContractionHierarchy h:
+	// h.ranks is a permutation of [0, h.network.nodeCount()) &&
+	// for all e: edge_originals[e] >= 0 ==> e stands for that network edge,
+	//            otherwise e stands for edge_firsts[e] followed by edge_seconds[e] &&
+	// up_edges[up_offsets[u]..up_offsets[u+1]) are the edges u->v with ranks[u] < ranks[v] &&
+	// down_edges[down_offsets[v]..down_offsets[v+1]) are the edges u->v with ranks[u] > ranks[v]
+
+	private ContractionHierarchy(RoadNetwork network, int[] ranks, int edges, int[] sources,
+								 int[] targets, double[] weights, int[] originals, int[] firsts, int[] seconds) {
+		this.network = network;
+		this.ranks = ranks;
+		edge_sources = Arrays.copyOf(sources, edges);
+		edge_targets = Arrays.copyOf(targets, edges);
+		edge_weights = Arrays.copyOf(weights, edges);
+		edge_originals = Arrays.copyOf(originals, edges);
+		edge_firsts = Arrays.copyOf(firsts, edges);
+		edge_seconds = Arrays.copyOf(seconds, edges);
+		int n = ranks.length, shortcuts = 0;
+		for (int e = 0; e < edges; ++e)
+			if (edge_originals[e] < 0)
+				++shortcuts;
+		shortcut_count = shortcuts;
+		up_offsets = new int[n + 1];
+		down_offsets = new int[n + 1];
+		for (int e = 0; e < edges; ++e) {
+			if (ranks[edge_sources[e]] < ranks[edge_targets[e]])
+				++up_offsets[edge_sources[e] + 1];
+			else
+				++down_offsets[edge_targets[e] + 1];
+		}
+		for (int i = 0; i < n; ++i) {
+			up_offsets[i + 1] += up_offsets[i];
+			down_offsets[i + 1] += down_offsets[i];
+		}
+		up_edges = new int[up_offsets[n]];
+		down_edges = new int[down_offsets[n]];
+		int[] up_next = Arrays.copyOf(up_offsets, n), down_next = Arrays.copyOf(down_offsets, n);
+		for (int e = 0; e < edges; ++e) {
+			if (ranks[edge_sources[e]] < ranks[edge_targets[e]])
+				up_edges[up_next[edge_sources[e]]++] = e;
+			else
+				down_edges[down_next[edge_targets[e]]++] = e;
+		}
+		states = ThreadLocal.withInitial(() -> new Router.SearchState[] {
+				new Router.SearchState(n), new Router.SearchState(n) });
+	}
+
+	/**
+	 * Preprocesses a network on the common ForkJoinPool.
+	 * @requires network != null
+	 * @return a new ContractionHierarchy h such that h.network = network
+	 **/
+	public static ContractionHierarchy build(RoadNetwork network) {
+		return build(network, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Preprocesses a network, running the parallel phases on pool.
+	 * @requires network != null && pool != null
+	 * @return a new ContractionHierarchy h such that h.network = network
+	 **/
+	public static ContractionHierarchy build(RoadNetwork network, ForkJoinPool pool) {
+		return new Contractor(network, pool).contract();
+	}
+
+	/**
+	 * Returns the network this hierarchy answers queries on.
+	 * @return this.network
+	 **/
+	public RoadNetwork getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Returns the number of shortcuts added by preprocessing.
+	 * @return the number of shortcut edges in this hierarchy
+	 **/
+	public int shortcutCount() {
+		return shortcut_count;
+	}
+
+	/**
+	 * Finds a shortest Route between two nodes of the network.
+	 * @requires from != null && to != null
+	 * @return a Route made of edges of this.network as specified by
+	 *         Router.shortestRoute(from, to)
+	 **/
+	public Route shortestRoute(GeoPoint from, GeoPoint to) {
+		int source = network.nodeOf(from), target = network.nodeOf(to);
+		if (source < 0 || target < 0 || source == target)
+			return null;
+		Router.SearchState[] s = states.get();
+		int meeting = search(source, target, s[0], s[1]);
+		if (meeting < 0)
+			return null;
+		return unpack(meeting, s[0], s[1]);
+	}
+
+	/**
+	 * Computes the length of a shortest Route between two nodes of the
+	 * network.
+	 * @requires from != null && to != null
+	 * @return the length, in kilometers, as specified by
+	 *         Router.shortestDistance(from, to)
+	 **/
+	public double shortestDistance(GeoPoint from, GeoPoint to) {
+		int source = network.nodeOf(from), target = network.nodeOf(to);
+		if (source < 0 || target < 0)
+			return Double.POSITIVE_INFINITY;
+		if (source == target)
+			return 0;
+		Router.SearchState[] s = states.get();
+		int meeting = search(source, target, s[0], s[1]);
+		return (meeting < 0) ? Double.POSITIVE_INFINITY
+				: (s[0].distance(meeting) + s[1].distance(meeting)) / Lengths.MILLIMETERS_PER_KILOMETER;
+	}
+
+	/**
+	 * Runs the bidirectional upward search.
+	 * @modifies forward, backward
+	 * @return the node where the shortest path meets, or -1 if target can
+	 *         not be reached from source
+	 **/
+	private int search(int source, int target, Router.SearchState forward, Router.SearchState backward) {
+		forward.reset();
+		backward.reset();
+		forward.set(source, 0, NO_EDGE);
+		forward.heap.insertOrDecrease(source, 0);
+		backward.set(target, 0, NO_EDGE);
+		backward.heap.insertOrDecrease(target, 0);
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+		while (true) {
+			double forward_min = forward.heap.isEmpty() ? Double.POSITIVE_INFINITY : forward.heap.minKey();
+			double backward_min = backward.heap.isEmpty() ? Double.POSITIVE_INFINITY : backward.heap.minKey();
+			if (Math.min(forward_min, backward_min) >= best)
+				return meeting;
+			boolean is_forward = forward_min <= backward_min;
+			Router.SearchState own = is_forward ? forward : backward;
+			Router.SearchState other = is_forward ? backward : forward;
+			int node = own.heap.poll();
+			double distance = own.distance(node);
+			double through = distance + other.distance(node);
+			if (through < best) {
+				best = through;
+				meeting = node;
+			}
+			int[] offsets = is_forward ? up_offsets : down_offsets;
+			int[] edges = is_forward ? up_edges : down_edges;
+			for (int i = offsets[node], end = offsets[node + 1]; i < end; ++i) {
+				int e = edges[i];
+				int next = is_forward ? edge_targets[e] : edge_sources[e];
+				double candidate = distance + edge_weights[e];
+				if (candidate < own.distance(next)) {
+					own.set(next, candidate, e);
+					own.heap.insertOrDecrease(next, candidate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the Route found by the last search.
+	 * @return the Route through meeting, with every shortcut replaced by the
+	 *         network edges it stands for
+	 **/
+	private Route unpack(int meeting, Router.SearchState forward, Router.SearchState backward) {
+		// hierarchy edges from the source to meeting, collected backwards
+		int[] path = new int[16];
+		int count = 0;
+		for (int node = meeting, e; (e = forward.parent(node)) != NO_EDGE; node = edge_sources[e]) {
+			if (count == path.length)
+				path = Arrays.copyOf(path, count * 2);
+			path[count++] = e;
+		}
+		for (int i = 0, j = count - 1; i < j; ++i, --j) {
+			int t = path[i];
+			path[i] = path[j];
+			path[j] = t;
+		}
+		for (int node = meeting, e; (e = backward.parent(node)) != NO_EDGE; node = edge_targets[e]) {
+			if (count == path.length)
+				path = Arrays.copyOf(path, count * 2);
+			path[count++] = e;
+		}
+		RouteBuilder builder = new RouteBuilder(count);
+		int[] stack = new int[16];
+		for (int i = 0; i < count; ++i) {
+			int top = 0;
+			stack[top++] = path[i];
+			while (top > 0) {
+				int e = stack[--top];
+				if (edge_originals[e] >= 0) {
+					builder.add(network.edgeSegment(edge_sources[e], edge_originals[e]));
+				} else {
+					if (top + 2 > stack.length)
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					stack[top++] = edge_seconds[e];
+					stack[top++] = edge_firsts[e];
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Saves this hierarchy.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects writes this hierarchy to out in a form read() accepts for
+	 *          this.network; out is flushed but not closed
+	 * @throws IOException if writing to out fails
+	 **/
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeLong(network.fingerprint());
+		data.writeInt(ranks.length);
+		data.writeInt(edge_weights.length);
+		for (int rank : ranks)
+			data.writeInt(rank);
+		for (int e = 0; e < edge_weights.length; ++e) {
+			data.writeInt(edge_sources[e]);
+			data.writeInt(edge_targets[e]);
+			data.writeDouble(edge_weights[e]);
+			data.writeInt(edge_originals[e]);
+			data.writeInt(edge_firsts[e]);
+			data.writeInt(edge_seconds[e]);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Loads a hierarchy saved by write().
+	 * @requires network != null && in != null
+	 * @modifies in
+	 * @return the ContractionHierarchy h written to in, with h.network = network
+	 * @throws IOException if reading fails, including when in ends before
+	 *         the number of edges it declares, or if in does not hold a
+	 *         hierarchy computed for a network equal to network: its ranks
+	 *         are not a permutation of the nodes, or an edge refers to a
+	 *         node, network edge or hierarchy edge that is not there or
+	 *         does not fit it
+	 **/
+	public static ContractionHierarchy read(RoadNetwork network, InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC)
+			throw new IOException("not a contraction hierarchy");
+		if (data.readLong() != network.fingerprint())
+			throw new IOException("contraction hierarchy was computed for a different network");
+		int n = data.readInt(), edges = data.readInt();
+		if (n != network.nodeCount() || edges < 0)
+			throw new IOException("contraction hierarchy does not match the network");
+		int[] ranks = new int[n];
+		boolean[] ranked = new boolean[n];
+		for (int i = 0; i < n; ++i) {
+			int rank = data.readInt();
+			if (rank < 0 || rank >= n || ranked[rank])
+				throw new IOException("invalid rank of node " + i);
+			ranked[rank] = true;
+			ranks[i] = rank;
+		}
+		// the edge count is not trusted to size the arrays: they start at the
+		// size build() starts with and grow as edges are actually read
+		int m = network.edgeCount(), capacity = (int) Math.min(edges, m + m / 2 + 16L);
+		int[] sources = new int[capacity], targets = new int[capacity];
+		int[] originals = new int[capacity], firsts = new int[capacity], seconds = new int[capacity];
+		double[] weights = new double[capacity];
+		for (int e = 0; e < edges; ++e) {
+			if (e == sources.length) {
+				int size = (int) Math.min(edges, 2L * e);
+				sources = Arrays.copyOf(sources, size);
+				targets = Arrays.copyOf(targets, size);
+				originals = Arrays.copyOf(originals, size);
+				firsts = Arrays.copyOf(firsts, size);
+				seconds = Arrays.copyOf(seconds, size);
+				weights = Arrays.copyOf(weights, size);
+			}
+			sources[e] = data.readInt();
+			targets[e] = data.readInt();
+			weights[e] = data.readDouble();
+			originals[e] = data.readInt();
+			firsts[e] = data.readInt();
+			seconds[e] = data.readInt();
+			if (!validEdge(network, ranks, e, sources, targets, weights, originals, firsts, seconds))
+				throw new IOException("invalid contraction hierarchy edge " + e);
+		}
+		return new ContractionHierarchy(network, ranks, edges, sources, targets, weights,
+				originals, firsts, seconds);
+	}
+
+
+	/**
+	 * Tells whether hierarchy edge e, read from a saved hierarchy, fits the
+	 * network and the edges before it: an original edge must be the network
+	 * edge it names, with its length, and a shortcut must join two earlier
+	 * edges that meet at a node ranked below both of its ends, with the sum
+	 * of their weights.
+	 * @requires 0 <= e < the length of every array, and ranks is a
+	 *           permutation of [0, network.nodeCount())
+	 **/
+	private static boolean validEdge(RoadNetwork network, int[] ranks, int e, int[] sources, int[] targets,
+									 double[] weights, int[] originals, int[] firsts, int[] seconds) {
+		int n = network.nodeCount();
+		int source = sources[e], target = targets[e], original = originals[e];
+		if (source < 0 || source >= n || target < 0 || target >= n || source == target)
+			return false;
+		if (original >= 0) {
+			return original < network.edgeCount() && firsts[e] == NO_EDGE && seconds[e] == NO_EDGE
+					&& network.edgeSource(original) == source && network.edgeTarget(original) == target
+					&& weights[e] == network.edgeMillimeters(original);
+		}
+		int first = firsts[e], second = seconds[e];
+		if (original != NO_EDGE || first < 0 || first >= e || second < 0 || second >= e)
+			return false;
+		int middle = targets[first];
+		return sources[first] == source && sources[second] == middle && targets[second] == target
+				&& ranks[middle] < ranks[source] && ranks[middle] < ranks[target]
+				&& weights[e] == weights[first] + weights[second];
+	}
+
+
+	/**
+	 * The preprocessing of one network. Holds the remaining graph as
+	 * growable per-node arc lists, from which contracted nodes are removed.
+	 **/
+	private static final class Contractor {
+
+		private final RoadNetwork network;
+		private final ForkJoinPool pool;
+		private final int n;
+
+		// arcs of the remaining graph, at most one per ordered pair of nodes
+		private final int[][] out_nodes, out_edges, in_nodes, in_edges;
+		private final double[][] out_weights, in_weights;
+		private final int[] out_counts, in_counts;
+
+		// every hierarchy edge created so far
+		private int edge_count;
+		private int[] sources, targets, originals, firsts, seconds;
+		private double[] weights;
+
+		private final boolean[] selected;	// to be contracted this round
+		private final int[] ranks;
+		private final int[] contracted_neighbors;
+		private final double[] priorities;
+		private final boolean[] dirty;
+		private final ThreadLocal<Router.SearchState> witness_states;
+
+		Contractor(RoadNetwork network, ForkJoinPool pool) {
+			this.network = network;
+			this.pool = pool;
+			n = network.nodeCount();
+			out_nodes = new int[n][];
+			out_edges = new int[n][];
+			out_weights = new double[n][];
+			in_nodes = new int[n][];
+			in_edges = new int[n][];
+			in_weights = new double[n][];
+			out_counts = new int[n];
+			in_counts = new int[n];
+			for (int i = 0; i < n; ++i) {
+				int degree = Math.max(2, network.outDegree(i));
+				out_nodes[i] = new int[degree];
+				out_edges[i] = new int[degree];
+				out_weights[i] = new double[degree];
+				in_nodes[i] = new int[2];
+				in_edges[i] = new int[2];
+				in_weights[i] = new double[2];
+			}
+			int m = network.edgeCount();
+			sources = new int[m + m / 2 + 16];
+			targets = new int[sources.length];
+			originals = new int[sources.length];
+			firsts = new int[sources.length];
+			seconds = new int[sources.length];
+			weights = new double[sources.length];
+			selected = new boolean[n];
+			ranks = new int[n];
+			contracted_neighbors = new int[n];
+			priorities = new double[n];
+			dirty = new boolean[n];
+			Arrays.fill(dirty, true);
+			witness_states = ThreadLocal.withInitial(() -> new Router.SearchState(n));
+			for (int u = 0; u < n; ++u) {
+				for (int e = network.firstEdge(u); e < network.endEdge(u); ++e) {
+					int v = network.edgeTarget(e);
+					if (u != v)
+						addArc(u, v, network.edgeMillimeters(e), e, NO_EDGE, NO_EDGE);
+				}
+			}
+		}
+
+		ContractionHierarchy contract() {
+			int[] remaining = new int[n];
+			for (int i = 0; i < n; ++i)
+				remaining[i] = i;
+			int remaining_count = n, next_rank = 0;
+			Shortcuts[] found = new Shortcuts[n];
+			while (remaining_count > 0) {
+				final int[] nodes = remaining;
+				final int count = remaining_count;
+				// 1. update the priorities changed by the previous round
+				run(() -> IntStream.range(0, count).parallel().forEach(i -> {
+					int v = nodes[i];
+					if (dirty[v]) {
+						priorities[v] = priority(v);
+						dirty[v] = false;
+					}
+				}));
+				// 2. pick every node whose priority is the lowest among its
+				// neighbors; no two picked nodes are adjacent
+				run(() -> IntStream.range(0, count).parallel().forEach(i -> {
+					int v = nodes[i];
+					selected[v] = isLocalMinimum(v);
+				}));
+				// 3. find the shortcuts of the picked nodes
+				run(() -> IntStream.range(0, count).parallel().forEach(i -> {
+					int v = nodes[i];
+					if (selected[v])
+						found[v] = findShortcuts(v, new Shortcuts(), witness_states.get());
+				}));
+				// 4. contract them
+				int kept = 0;
+				for (int i = 0; i < count; ++i) {
+					int v = nodes[i];
+					if (!selected[v]) {
+						remaining[kept++] = v;
+						continue;
+					}
+					Shortcuts s = found[v];
+					for (int j = 0; j < s.count; ++j)
+						addArc(s.from[j], s.to[j], s.weight[j], NO_EDGE, s.first[j], s.second[j]);
+					found[v] = null;
+					ranks[v] = next_rank++;
+					disconnect(v);
+				}
+				for (int i = 0; i < count; ++i)
+					selected[nodes[i]] = false;
+				remaining_count = kept;
+			}
+			return new ContractionHierarchy(network, ranks, edge_count, sources, targets, weights,
+					originals, firsts, seconds);
+		}
+
+		private void run(Runnable task) {
+			pool.submit(task).join();
+		}
+
+		/**
+		 * Returns the priority of a remaining node: twice the number of
+		 * shortcuts contracting it would add minus the arcs it would remove,
+		 * plus the number of its neighbors already contracted (which spreads
+		 * the contraction evenly over the network).
+		 **/
+		private double priority(int v) {
+			int shortcuts = findShortcuts(v, null, witness_states.get()).count;
+			return 2.0 * (shortcuts - in_counts[v] - out_counts[v]) + contracted_neighbors[v];
+		}
+
+		private boolean isLocalMinimum(int v) {
+			for (int j = 0; j < in_counts[v]; ++j)
+				if (!precedes(v, in_nodes[v][j]))
+					return false;
+			for (int j = 0; j < out_counts[v]; ++j)
+				if (!precedes(v, out_nodes[v][j]))
+					return false;
+			return true;
+		}
+
+		private boolean precedes(int v, int w) {
+			return priorities[v] < priorities[w] || (priorities[v] == priorities[w] && v < w);
+		}
+
+		/**
+		 * Removes the arcs between a contracted node and its neighbors, and
+		 * marks the neighbors for a priority update.
+		 **/
+		private void disconnect(int v) {
+			for (int j = 0; j < in_counts[v]; ++j) {
+				int u = in_nodes[v][j];
+				remove(out_nodes[u], out_edges[u], out_weights[u], out_counts, u, v);
+				++contracted_neighbors[u];
+				dirty[u] = true;
+			}
+			for (int j = 0; j < out_counts[v]; ++j) {
+				int w = out_nodes[v][j];
+				remove(in_nodes[w], in_edges[w], in_weights[w], in_counts, w, v);
+				++contracted_neighbors[w];
+				dirty[w] = true;
+			}
+		}
+
+		private static void remove(int[] nodes, int[] edges, double[] weights, int[] counts, int owner, int node) {
+			int j = indexOf(nodes, counts[owner], node);
+			int last = --counts[owner];
+			nodes[j] = nodes[last];
+			edges[j] = edges[last];
+			weights[j] = weights[last];
+		}
+
+		/**
+		 * Finds the shortcuts needed to contract v: for every remaining
+		 * u -> v -> w with u != w, a shortcut u -> w unless a bounded search
+		 * from u that avoids v finds a path to w that is no longer.
+		 * @return result (or a counting-only Shortcuts if result is null)
+		 **/
+		private Shortcuts findShortcuts(int v, Shortcuts result, Router.SearchState state) {
+			Shortcuts s = (result != null) ? result : new Shortcuts();
+			for (int i = 0; i < in_counts[v]; ++i) {
+				int u = in_nodes[v][i];
+				double to_v = in_weights[v][i];
+				double limit = 0;
+				for (int j = 0; j < out_counts[v]; ++j) {
+					int w = out_nodes[v][j];
+					if (w != u)
+						limit = Math.max(limit, to_v + out_weights[v][j]);
+				}
+				if (limit == 0)
+					continue;
+				witnessSearch(u, v, limit, state);
+				for (int j = 0; j < out_counts[v]; ++j) {
+					int w = out_nodes[v][j];
+					if (w == u)
+						continue;
+					double via = to_v + out_weights[v][j];
+					if (state.distance(w) > via)
+						s.add(u, w, via, in_edges[v][i], out_edges[v][j], result != null);
+				}
+			}
+			return s;
+		}
+
+		/**
+		 * Runs Dijkstra from u over the remaining graph without v, settling
+		 * at most WITNESS_SETTLE_LIMIT nodes and none farther than limit.
+		 * Nodes picked for the current round are avoided too, so a witness
+		 * never relies on a node contracted alongside v.
+		 **/
+		private void witnessSearch(int u, int v, double limit, Router.SearchState state) {
+			state.reset();
+			state.set(u, 0, NO_EDGE);
+			state.heap.insertOrDecrease(u, 0);
+			int settled = 0;
+			while (!state.heap.isEmpty() && state.heap.minKey() <= limit && settled++ < WITNESS_SETTLE_LIMIT) {
+				int x = state.heap.poll();
+				double distance = state.distance(x);
+				for (int j = 0; j < out_counts[x]; ++j) {
+					int y = out_nodes[x][j];
+					if (y == v || selected[y])
+						continue;
+					double candidate = distance + out_weights[x][j];
+					if (candidate < state.distance(y)) {
+						state.set(y, candidate, NO_EDGE);
+						state.heap.insertOrDecrease(y, candidate);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds a hierarchy edge u -> v and makes it the arc from u to v in
+		 * the remaining graph, unless that arc is already no longer.
+		 **/
+		private void addArc(int u, int v, double weight, int original, int first, int second) {
+			int j = indexOf(out_nodes[u], out_counts[u], v);
+			if (j >= 0 && out_weights[u][j] <= weight)
+				return;
+			int e = newEdge(u, v, weight, original, first, second);
+			if (j >= 0) {
+				out_weights[u][j] = weight;
+				out_edges[u][j] = e;
+				int k = indexOf(in_nodes[v], in_counts[v], u);
+				in_weights[v][k] = weight;
+				in_edges[v][k] = e;
+				return;
+			}
+			if (out_counts[u] == out_nodes[u].length) {
+				int size = out_counts[u] * 2;
+				out_nodes[u] = Arrays.copyOf(out_nodes[u], size);
+				out_edges[u] = Arrays.copyOf(out_edges[u], size);
+				out_weights[u] = Arrays.copyOf(out_weights[u], size);
+			}
+			out_nodes[u][out_counts[u]] = v;
+			out_edges[u][out_counts[u]] = e;
+			out_weights[u][out_counts[u]++] = weight;
+			if (in_counts[v] == in_nodes[v].length) {
+				int size = in_counts[v] * 2;
+				in_nodes[v] = Arrays.copyOf(in_nodes[v], size);
+				in_edges[v] = Arrays.copyOf(in_edges[v], size);
+				in_weights[v] = Arrays.copyOf(in_weights[v], size);
+			}
+			in_nodes[v][in_counts[v]] = u;
+			in_edges[v][in_counts[v]] = e;
+			in_weights[v][in_counts[v]++] = weight;
+		}
+
+		private int newEdge(int u, int v, double weight, int original, int first, int second) {
+			if (edge_count == sources.length) {
+				int size = edge_count * 2;
+				sources = Arrays.copyOf(sources, size);
+				targets = Arrays.copyOf(targets, size);
+				originals = Arrays.copyOf(originals, size);
+				firsts = Arrays.copyOf(firsts, size);
+				seconds = Arrays.copyOf(seconds, size);
+				weights = Arrays.copyOf(weights, size);
+			}
+			sources[edge_count] = u;
+			targets[edge_count] = v;
+			weights[edge_count] = weight;
+			originals[edge_count] = original;
+			firsts[edge_count] = first;
+			seconds[edge_count] = second;
+			return edge_count++;
+		}
+
+		private static int indexOf(int[] nodes, int count, int node) {
+			for (int j = 0; j < count; ++j)
+				if (nodes[j] == node)
+					return j;
+			return -1;
+		}
+	}
+
+	/**
+	 * The shortcuts found for one node. When only counting, nothing but
+	 * count is kept.
+	 **/
+	private static final class Shortcuts {
+		int count;
+		int[] from = new int[0], to = new int[0], first = new int[0], second = new int[0];
+		double[] weight = new double[0];
+
+		void add(int u, int w, double via, int first_edge, int second_edge, boolean keep) {
+			if (keep) {
+				if (count == from.length) {
+					int size = Math.max(4, count * 2);
+					from = Arrays.copyOf(from, size);
+					to = Arrays.copyOf(to, size);
+					first = Arrays.copyOf(first, size);
+					second = Arrays.copyOf(second, size);
+					weight = Arrays.copyOf(weight, size);
+				}
+				from[count] = u;
+				to[count] = w;
+				weight[count] = via;
+				first[count] = first_edge;
+				second[count] = second_edge;
+			}
+			++count;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A DirectionsModel keeps the directions of a Route that grows one
+ * GeoSegment at a time. DirectionsModels are mutable and not thread-safe.
+ * <p>
+ * The directions of a route are one line per GeoFeature, each computed by a
+ * RouteFormatter from the feature and the heading the previous feature
+ * ended with. Appending a segment either extends the last feature, which
+ * changes only the last line, or starts a new feature, which adds one line
+ * after the others. The model keeps the lines it computed, so an append
+ * computes a single line, whatever the length of the route, and reports
+ * the change as a Delta that a text view can apply in place:
+ * <pre>
+ *   DirectionsModel.Delta d = model.addSegment(gs);
+ *   textArea.replaceRange(d.getLine(), d.getStart(), d.getEnd());
+ * </pre>
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   formatter : RouteFormatter   // computes the lines
+ *   heading : angle              // the heading before the first feature
+ *   route : Route                // the segments added so far, or null
+ *   lines : sequence of String   // the lines of the directions of route
+ * </pre>
+ **/
+public class DirectionsModel {
+
+	private final RouteFormatter formatter;
+	private final double heading;
+	private Route route;
+	private final ArrayList<String> lines = new ArrayList<>();
+	private final List<String> lines_view = Collections.unmodifiableList(lines);
+	private double last_heading;	// the heading the last line starts from
+	private int length;				// the total length of the lines
+
+	// Abs. Function for every DirectionsModel m:
+	// m.formatter, m.heading and m.route are the fields of the same names,
+	// and m.lines = [m.lines.get(0), ..., m.lines.get(m.lines.size() - 1)]
+
+	// Rep. Invariant for every DirectionsModel m:
+	// m.formatter != null && 0 <= m.heading < 360 &&
+	// (m.route == null) == m.lines is empty &&
+	// if m.route != null: m.lines.size() = m.route.geoFeatureList().size() &&
+	//   concatenating m.lines gives m.formatter.computeDirections(m.route, m.heading) &&
+	//   m.last_heading is the heading the last line was computed from &&
+	// m.length is the sum of the lengths of m.lines
+
+	/**
+	 * A change of the directions made by one append: one line replaced or
+	 * added. Deltas are immutable.
+	 **/
+	public static final class Delta {
+
+		private final int index;
+		private final String line;
+		private final boolean appended;
+		private final int start, end;
+
+		private Delta(int index, String line, boolean appended, int start, int end) {
+			this.index = index;
+			this.line = line;
+			this.appended = appended;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Returns the index of the changed line.
+		 * @return the index of the line that was replaced or added
+		 **/
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Returns the new text of the changed line.
+		 * @return the newline-terminated line now at getIndex()
+		 **/
+		public String getLine() {
+			return line;
+		}
+
+		/**
+		 * Tells whether the change added a line.
+		 * @return true if the line was added after the others, false if it
+		 *         replaced the last line
+		 **/
+		public boolean isAppended() {
+			return appended;
+		}
+
+		/**
+		 * Returns the offset, in the text before the change, where the
+		 * changed line starts.
+		 * @return the number of characters before the changed line
+		 **/
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * Returns the offset, in the text before the change, where the
+		 * replaced line ended.
+		 * @return getStart() plus the length of the replaced line, or
+		 *         getStart() if the line was added
+		 **/
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * Returns a string representation of this.
+		 * @return a string representation of this.
+		 **/
+		public String toString() {
+			return (appended ? "add " : "replace ") + index + " [" + start + "," + end + "): " + line;
+		}
+	}
+
+	/**
+	 * Constructs an empty model.
+	 * @requires formatter != null && 0 <= heading < 360
+	 * @effects constructs a new DirectionsModel m with m.formatter =
+	 *          formatter, m.heading = heading, m.route = null and no lines
+	 **/
+	public DirectionsModel(RouteFormatter formatter, double heading) {
+		this.formatter = formatter;
+		this.heading = heading;
+	}
+
+	/**
+	 * Appends a segment to the route and updates the directions.
+	 * @requires gs != null && (this.route == null || gs.p1 = this.route.end)
+	 * @modifies this
+	 * @effects this.route = the route this.route.addSegment(gs) returns, or
+	 *          new Route(gs) if this.route was null, and this.lines are
+	 *          its directions. If the route or the line cannot be
+	 *          computed, this is unchanged.
+	 * @return the change of this.lines
+	 **/
+	public Delta addSegment(GeoSegment gs) {
+		int features = (route == null) ? 0 : route.geoFeatureList().size();
+		Route extended;
+		double line_heading = last_heading;
+		if (route == null) {
+			extended = new Route(gs);
+			line_heading = heading;
+		} else {
+			GeoFeature previous = route.geoFeatureList().get(features - 1);
+			extended = route.addSegment(gs);
+			if (extended.geoFeatureList().size() > features)
+				line_heading = previous.getEndHeading();
+		}
+		List<GeoFeature> now = extended.geoFeatureList();
+		String line = formatter.computeLine(now.get(now.size() - 1), line_heading);
+		route = extended;
+		last_heading = line_heading;
+		Delta delta;
+		if (now.size() > features) {
+			delta = new Delta(lines.size(), line, true, length, length);
+			lines.add(line);
+			length += line.length();
+		} else {
+			int last = lines.size() - 1;
+			String replaced = lines.set(last, line);
+			int start = length - replaced.length();
+			delta = new Delta(last, line, false, start, length);
+			length = start + line.length();
+		}
+		return delta;
+	}
+
+	/**
+	 * Returns the route.
+	 * @return this.route
+	 **/
+	public Route getRoute() {
+		return route;
+	}
+
+	/**
+	 * Returns the lines of the directions.
+	 * @return an unmodifiable view of this.lines, which changes as segments
+	 *         are added
+	 **/
+	public List<String> getLines() {
+		return lines_view;
+	}
+
+	/**
+	 * Returns the directions as one String.
+	 * @return the concatenation of this.lines, which equals
+	 *         this.formatter.computeDirections(this.route, this.heading)
+	 *         if this.route != null, and "" otherwise
+	 **/
+	public String getText() {
+		StringBuilder text = new StringBuilder(length);
+		for (String line : lines)
+			text.append(line);
+		return text.toString();
+	}
+
+	/**
+	 * Returns the end of the directions, from the start of a line.
+	 * Takes time proportional to the length of the result.
+	 * @requires start is 0, getTextLength(), or the getStart() of a Delta
+	 *           this model returned
+	 * @return getText().substring(start)
+	 **/
+	public String getText(int start) {
+		int i = lines.size(), offset = length;
+		while (offset > start && i > 0)
+			offset -= lines.get(--i).length();
+		if (offset != start)
+			throw new IllegalArgumentException(start + " is not the start of a line");
+		StringBuilder text = new StringBuilder(length - start);
+		for (; i < lines.size(); ++i)
+			text.append(lines.get(i));
+		return text.toString();
+	}
+
+	/**
+	 * Returns the length of the directions.
+	 * @return the length of getText()
+	 **/
+	public int getTextLength() {
+		return length;
+	}
+}
@@ -0,0 +1,107 @@
+package homework1;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A DirectionsPipeline renders the directions of a Route in several modes
+ * at once, such as walking and driving, in a single pass over the route.
+ * DirectionsPipelines are immutable, and thread-safe if their formatters
+ * are.
+ * <p>
+ * For every GeoFeature the pipeline classifies the turn onto it once and
+ * carries the heading to the next feature once; each RouteFormatter then
+ * only writes its text, through
+ * <tt>appendLine(Turn, String, long, Appendable)</tt>. Each mode
+ * gets exactly what <tt>computeDirections(route, heading)</tt> of its
+ * formatter returns.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   formatters : sequence of RouteFormatter   // the modes, in order
+ * </pre>
+ **/
+public class DirectionsPipeline {
+
+	private final RouteFormatter[] formatters;
+
+	// Abs. Function for every DirectionsPipeline p:
+	// p.formatters = [p.formatters[0], ..., p.formatters[p.formatters.length - 1]]
+
+	// Rep. Invariant for every DirectionsPipeline p:
+	// p.formatters != null && p.formatters does not contain null
+
+	/**
+	 * Constructs a pipeline that feeds the specified formatters.
+	 * @requires formatters != null && formatters does not contain null
+	 * @effects constructs a new DirectionsPipeline p with p.formatters =
+	 *          formatters
+	 **/
+	public DirectionsPipeline(RouteFormatter... formatters) {
+		this.formatters = formatters.clone();
+	}
+
+	/**
+	 * Returns the number of modes.
+	 * @return the length of this.formatters
+	 **/
+	public int modeCount() {
+		return formatters.length;
+	}
+
+	/**
+	 * Returns the formatter of a mode.
+	 * @requires 0 <= mode < modeCount()
+	 * @return this.formatters[mode]
+	 **/
+	public RouteFormatter getFormatter(int mode) {
+		return formatters[mode];
+	}
+
+	/**
+	 * Writes the directions of a route in every mode, one line per mode
+	 * for each feature in turn.
+	 * @requires route != null && 0 <= heading < 360 && outs != null &&
+	 *           outs does not contain null
+	 * @modifies outs
+	 * @effects appends this.formatters[i].computeDirections(route, heading)
+	 *          to outs[i], for every i
+	 * @throws IllegalArgumentException if outs.length != modeCount()
+	 * @throws IOException if appending to an element of outs fails
+	 **/
+	public void computeDirections(Route route, double heading, Appendable... outs) throws IOException {
+		if (outs.length != formatters.length)
+			throw new IllegalArgumentException(outs.length + " outputs for " + formatters.length + " modes");
+		Iterator<GeoFeature> it = route.getGeoFeatures();
+		while (it.hasNext()) {
+			GeoFeature gf = it.next();
+			Turn turn = Turn.of(heading, gf.getStartHeading());
+			String name = gf.getName();
+			long length_mm = gf.getLengthMillimeters();
+			for (int i = 0; i < formatters.length; ++i)
+				formatters[i].appendLine(turn, name, length_mm, outs[i]);
+			heading = gf.getEndHeading();
+		}
+	}
+
+	/**
+	 * Computes the directions of a route in every mode.
+	 * @requires route != null && 0 <= heading < 360
+	 * @return an array d of modeCount() Strings such that d[i] =
+	 *         this.formatters[i].computeDirections(route, heading)
+	 **/
+	public String[] computeDirections(Route route, double heading) {
+		StringBuilder[] outs = new StringBuilder[formatters.length];
+		for (int i = 0; i < outs.length; ++i)
+			outs[i] = new StringBuilder();
+		try {
+			computeDirections(route, heading, (Appendable[]) outs);
+		} catch (IOException e) {
+			throw new AssertionError(e);	// StringBuilder does not throw
+		}
+		String[] directions = new String[outs.length];
+		for (int i = 0; i < outs.length; ++i)
+			directions[i] = outs[i].toString();
+		return directions;
+	}
+}
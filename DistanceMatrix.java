@@ -0,0 +1,204 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A DistanceMatrix holds the shortest-route lengths from every point of one
+ * list of GeoPoints (the sources) to every point of another (the targets)
+ * over a RoadNetwork. DistanceMatrices are immutable.
+ * <p>
+ * The matrix is computed with one Dijkstra search per source, which stops
+ * as soon as every target has been reached, instead of one search per
+ * pair. The searches run in parallel on a ForkJoinPool, each worker thread
+ * reusing one search state, and write their rows straight into a single
+ * row-major <tt>double[]</tt>; no per-entry objects are created.
+ * <p>
+ * Lengths are the ones Router reports, and are also offered rounded the
+ * way the route formatters print them: walking minutes as in
+ * WalkingRouteFormatter and driving kilometers to a tenth as in
+ * DrivingRouteFormatter.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   rows    : int                // the number of sources
+ *   columns : int                // the number of targets
+ *   km      : double[rows][columns] // km[i][j] is the length, in kilometers,
+ *                                // of a shortest route from source i to
+ *                                // target j, or +infinity if there is none
+ * </pre>
+ **/
+public class DistanceMatrix {
+
+	private final int rows;
+	private final int columns;
+	private final double[] kilometers;
+
+	// Abs. Function for every DistanceMatrix d:
+	// d.km[i][j] = d.kilometers[i * d.columns + j]
+
+	// Rep. Invariant for every DistanceMatrix d:
+	// d.rows >= 0 && d.columns >= 0 && d.kilometers.length == d.rows * d.columns &&
+	// every entry of d.kilometers is >= 0 or +infinity
+
+	private DistanceMatrix(int rows, int columns, double[] kilometers) {
+		this.rows = rows;
+		this.columns = columns;
+		this.kilometers = kilometers;
+	}
+
+	/**
+	 * Computes a matrix on the common ForkJoinPool.
+	 * @requires network != null && sources != null && targets != null &&
+	 *           sources and targets do not contain null
+	 * @return a new DistanceMatrix as specified by
+	 *         compute(network, sources, targets, ForkJoinPool.commonPool())
+	 **/
+	public static DistanceMatrix compute(RoadNetwork network, GeoPoint[] sources, GeoPoint[] targets) {
+		return compute(network, sources, targets, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Computes a matrix, running the searches on pool.
+	 * @requires network != null && sources != null && targets != null &&
+	 *           sources and targets do not contain null && pool != null
+	 * @return a new DistanceMatrix d with d.rows = sources.length,
+	 *         d.columns = targets.length and d.km[i][j] the length of a
+	 *         shortest route in network from sources[i] to targets[j]: 0 if
+	 *         they are equal nodes, +infinity if either is not a node of
+	 *         network or targets[j] can not be reached from sources[i]
+	 **/
+	public static DistanceMatrix compute(RoadNetwork network, GeoPoint[] sources, GeoPoint[] targets,
+										 ForkJoinPool pool) {
+		int rows = sources.length, columns = targets.length;
+		int[] source_nodes = new int[rows];
+		for (int i = 0; i < rows; ++i)
+			source_nodes[i] = network.nodeOf(sources[i]);
+		int[] target_nodes = new int[columns];
+		boolean[] is_target = new boolean[network.nodeCount()];
+		int distinct_targets = 0;
+		for (int j = 0; j < columns; ++j) {
+			int node = network.nodeOf(targets[j]);
+			target_nodes[j] = node;
+			if (node >= 0 && !is_target[node]) {
+				is_target[node] = true;
+				++distinct_targets;
+			}
+		}
+		double[] kilometers = new double[Math.multiplyExact(rows, columns)];
+		ThreadLocal<Router.SearchState> states =
+				ThreadLocal.withInitial(() -> new Router.SearchState(network.nodeCount()));
+		final int wanted = distinct_targets;
+		pool.submit(() -> IntStream.range(0, rows).parallel().forEach(i -> {
+			int offset = i * columns;
+			if (source_nodes[i] < 0) {
+				Arrays.fill(kilometers, offset, offset + columns, Double.POSITIVE_INFINITY);
+				return;
+			}
+			Router.SearchState state = states.get();
+			search(network, source_nodes[i], is_target, wanted, state);
+			for (int j = 0; j < columns; ++j)
+				kilometers[offset + j] = (target_nodes[j] < 0) ? Double.POSITIVE_INFINITY
+						: state.distance(target_nodes[j]) / Lengths.MILLIMETERS_PER_KILOMETER;
+		})).join();
+		return new DistanceMatrix(rows, columns, kilometers);
+	}
+
+	/**
+	 * Runs Dijkstra from source until every target node is settled.
+	 * @modifies state
+	 * @effects state holds the final distance of every target node that
+	 *          can be reached from source
+	 **/
+	private static void search(RoadNetwork network, int source, boolean[] is_target, int targets,
+							   Router.SearchState state) {
+		state.reset();
+		IndexedMinHeap heap = state.heap;
+		state.set(source, 0, -1);
+		heap.insertOrDecrease(source, 0);
+		int settled = 0;
+		while (!heap.isEmpty() && settled < targets) {
+			int node = heap.poll();
+			if (is_target[node])
+				++settled;
+			double distance = state.distance(node);
+			for (int e = network.firstEdge(node), end = network.endEdge(node); e < end; ++e) {
+				int next = network.edgeTarget(e);
+				double candidate = distance + network.edgeMillimeters(e);
+				if (candidate < state.distance(next)) {
+					state.set(next, candidate, e);
+					heap.insertOrDecrease(next, candidate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of sources.
+	 * @return this.rows
+	 **/
+	public int rows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the number of targets.
+	 * @return this.columns
+	 **/
+	public int columns() {
+		return columns;
+	}
+
+	/**
+	 * Returns the length of a shortest route.
+	 * @requires 0 <= source < rows && 0 <= target < columns
+	 * @return this.km[source][target]
+	 **/
+	public double kilometers(int source, int target) {
+		return kilometers[index(source, target)];
+	}
+
+	/**
+	 * Returns the length of a shortest route as DrivingRouteFormatter
+	 * reports it.
+	 * @requires 0 <= source < rows && 0 <= target < columns
+	 * @return this.km[source][target] rounded to a tenth of a kilometer, or
+	 *         +infinity if it is +infinity
+	 **/
+	public double drivingKilometers(int source, int target) {
+		double km = kilometers[index(source, target)];
+		return Double.isInfinite(km) ? km : DrivingRouteFormatter.drivingTenths(km) / 10.0;
+	}
+
+	/**
+	 * Returns the time to walk a shortest route as WalkingRouteFormatter
+	 * reports it.
+	 * @requires 0 <= source < rows && 0 <= target < columns
+	 * @return the minutes needed to walk this.km[source][target] at
+	 *         WalkingRouteFormatter.MINUTES_PER_KM, rounded to the nearest
+	 *         minute, or Integer.MAX_VALUE if it is +infinity
+	 **/
+	public int walkingMinutes(int source, int target) {
+		return WalkingRouteFormatter.walkingMinutes(kilometers[index(source, target)]);
+	}
+
+	/**
+	 * Copies the lengths into an array.
+	 * @requires dest != null && 0 <= offset &&
+	 *           offset + rows * columns <= dest.length
+	 * @modifies dest
+	 * @effects dest[offset + i * columns + j] = this.km[i][j] for every
+	 *          source i and target j
+	 **/
+	public void copyTo(double[] dest, int offset) {
+		System.arraycopy(kilometers, 0, dest, offset, kilometers.length);
+	}
+
+	private int index(int source, int target) {
+		if (source < 0 || source >= rows || target < 0 || target >= columns)
+			throw new IndexOutOfBoundsException("(" + source + ", " + target + ") in a "
+					+ rows + "x" + columns + " matrix");
+		return source * columns + target;
+	}
+}
@@ -1,6 +1,6 @@
 package homework1;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
 
 /**
  * The DrivingDirections class creates a textual description of directions
@@ -26,17 +26,16 @@ import java.text.DecimalFormat;
 public class DrivingRouteFormatter extends RouteFormatter {
   
   	/**
-     * Computes a single line of a multi-line directions String that
-     * represents the instructions for traversing a single geographic
-     * feature.
-     * @requires 0 <= origHeading < 360
-     * @param geoFeature the geographical feature to traverse.
-     * @param origHeading the initial heading.
-     * @return A newline-terminated <tt>String</tt> that gives
-     * 		   directions on how to traverse this geographical feature.<br>
-     * Calling <tt>computeLine</tt> with a GeoFeature instance and an
-     * initial heading should produce a newline-terminated String in the
-     * following form:
+     * Writes a single line of directions for traversing a single
+     * geographic feature, with the specified turn, name and length.
+     * @requires turn != null && name != null && length_mm >= 0 && out != null
+     * @param turn the turn onto the feature.
+     * @param name the name of the feature.
+     * @param length_mm the length of the feature, in millimeters.
+     * @param out where to write the line.
+     * @modifies out
+     * @effects appends to out a newline-terminated line in the following
+     * form:
      * <p>
      * <tt>
      * Turn sharp left onto Hanita and go 1.4 kilometers.<br>
@@ -48,26 +47,42 @@ public class DrivingRouteFormatter extends RouteFormatter {
      * tenth-of-a-kilometer precision. The String should be terminated by a
      * newline and should include no extra spaces other than those shown
      * above.
+     * @throws IOException if appending to out fails
      **/
-
-
-  	public String computeLine(GeoFeature geoFeature, double origHeading) {
-  		
-  		// Implementation hint:
-		// You may find the class java.text.DecimalFormat useful when
-		// implementing this method. More info can be found at:
-  	    // http://docs.oracle.com/javase/tutorial/java/data/numberformat.html
-  		// and at:
-  		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
-		   		
-  		// TODO Implement this method
-		String pattern = "###.#";
-		DecimalFormat decimalFormat = new DecimalFormat(pattern);
-		String format = decimalFormat.format(geoFeature.getLength());
-		String heading = getTurnString(origHeading, geoFeature.getStartHeading());
-
-		String str = heading + "onto " + geoFeature.getName() + " and go " + format + " kilometers.\n";
-		return str;
+  	@Override
+  	public void appendLine(Turn turn, String name, long length_mm, Appendable out) throws IOException {
+		// The length is written as java.text.DecimalFormat("###.#") would
+		// write it, from the fixed-point tenths of drivingTenths(), so no
+		// formatter or intermediate String is created
+		out.append(turn.phrase())
+			.append("onto ").append(name)
+			.append(" and go ");
+		appendTenths(out, drivingTenths(Lengths.toKilometers(length_mm)));
+		out.append(" kilometers.\n");
   	}
 
+	/**
+	 * Computes the driving distance reported for a distance.
+	 * @requires km >= 0 && km is finite
+	 * @return km rounded to a tenth of a kilometer, as in the lines of
+	 *         computeLine(), times ten
+	 **/
+	static long drivingTenths(double km) {
+		// DecimalFormat rounds the exact binary value of km half-even, so
+		// km * 10 is computed exactly, as the unevaluated sum of the
+		// rounded product and its error: km * 8 and km * 2 are exact, and
+		// adding them loses exactly err (Knuth's TwoSum)
+		double a = km * 8, b = km * 2;
+		double product = a + b;
+		double b_part = product - a;
+		double err = (a - (product - b_part)) + (b - b_part);
+		double floor = Math.floor(product);
+		// the sign of (product - floor - 0.5) + err, both exact terms, is
+		// the sign of their rounded sum
+		double above_half = (product - floor - 0.5) + err;
+		long tenths = (long) floor;
+		if (above_half > 0 || (above_half == 0 && (tenths & 1) != 0))
+			++tenths;
+		return tenths;
+	}
 }
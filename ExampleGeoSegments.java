@@ -1,10 +1,15 @@
 package homework1;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This class contains two static arrays representing GeoPoints and
  * GeoSegments near the Technion, as shown in the figure in homework
  * assignment #1. These arrays can be used as an example for testing
- * the code correctness. 
+ * the code correctness. The static methods build the network, route and
+ * formatter that the tests share from them.
  */
 public class ExampleGeoSegments {
 	
@@ -49,4 +54,51 @@ public class ExampleGeoSegments {
 		new GeoSegment("Me'ir Ya'ari", 		points[12], points[13]),
 		new GeoSegment("Natan Komoi", 		points[13], points[0])
 	};
+
+	/**
+	 * Returns the example segments as two-way streets.
+	 * @return a new List holding every segment of segments followed by its
+	 *         reverse
+	 */
+	public static List<GeoSegment> twoWaySegments() {
+		List<GeoSegment> twoWay = new ArrayList<>();
+		for (GeoSegment gs : segments) {
+			twoWay.add(gs);
+			twoWay.add(gs.reverse());
+		}
+		return twoWay;
+	}
+
+	/**
+	 * Returns the network of the example streets, all of them two-way.
+	 * @return a new RoadNetwork of twoWaySegments()
+	 */
+	public static RoadNetwork twoWayNetwork() {
+		return new RoadNetwork(twoWaySegments());
+	}
+
+	/**
+	 * Returns a route along several streets: the shortest route from Hankin
+	 * Road (points[0]) to Me'ir Ya'ari (points[12]).
+	 * @return the shortest Route from points[0] to points[12] in
+	 *         twoWayNetwork()
+	 */
+	public static Route longRoute() {
+		return new Router(twoWayNetwork()).shortestRoute(points[0], points[12]);
+	}
+
+	/**
+	 * Returns a RouteFormatter that writes only the turn and the street name
+	 * of each line, for checking how directions are put together apart from
+	 * how lengths are written.
+	 * @return a new RouteFormatter whose lines are the turn phrase and the
+	 *         name, followed by a newline
+	 */
+	public static RouteFormatter plainFormatter() {
+		return new RouteFormatter() {
+			public void appendLine(Turn turn, String name, long length_mm, Appendable out) throws IOException {
+				out.append(turn.phrase()).append(name).append('\n');
+			}
+		};
+	}
 }
@@ -1,6 +1,5 @@
 package homework1;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -26,6 +25,9 @@ import java.util.List;
  * necessarily the same as the distance along a straight line between
  * its endpoints.
  * <p>
+ * The length is summed in whole millimeters (see Lengths), so it is exact
+ * and does not depend on how the GeoFeature was put together.
+ * <p>
  * <b>The following fields are used in the specification:</b>
  * <pre>
  *   start : GeoPoint       // location of the start of the geographic feature
@@ -39,11 +41,13 @@ import java.util.List;
  **/
 public class GeoFeature {
 	private final GeoPoint start;
-	private GeoPoint end;
-	private double start_heading, end_heading;
-	private final List<GeoSegment> geo_segments;
+	private final GeoPoint end;
+	private final double start_heading, end_heading;
+	private final PersistentList<GeoSegment> geo_segments;
 	private final String name;
-	private double length;
+	private final int name_id;	// the id of name in StreetNames.global()
+	private final long length_mm;
+	private final int hash;
 
 	// Implementation hint:
 	// When asked to return an Iterator, consider using the iterator() method
@@ -52,6 +56,15 @@ public class GeoFeature {
 	// equality is needed, consider using the equals() method of List. More
 	// info can be found at:
 	//   http://docs.oracle.com/javase/8/docs/api/java/util/List.html
+	//
+	// geo_segments is a PersistentList, so a GeoFeature created by
+	// addSegment() shares the segments of the GeoFeature it was created from
+	// instead of copying them. GeoSegments are immutable, so sharing them is
+	// safe.
+	//
+	// hash is kept equal to geo_segments.hashCode(). List.hashCode() is
+	// defined by the recurrence h' = 31 * h + e.hashCode(), so addSegment()
+	// updates it in O(1).
 	
 	
   	// TODO Write abstraction function and representation invariant
@@ -61,27 +74,78 @@ public class GeoFeature {
 	// Rep. Invariant for every GeoFeature gf:
 	// gf.name != null && gs.name isn't empty
 	// gf.start != null && gf.end != null && gf.geoSegments != null and contains at least one GeoSegment
-	// gf.length >= 0
+	// gf.length_mm >= 0 && gf.length = Lengths.toKilometers(gf.length_mm)
 	// for all i: gf.geoSegments.get(i).getP2().equals(gf.geoSegments.get(i+1).getP1())
 	// NOTE: i in (0,geoSegments.size()-1)
 	// i.e., all geo segments come aligned one after the other in a feature
 	// for all i: gf.geoSegments.get(i).getName().equals(gf.name)
 	// i.e., all feature segments fit the feature name
 
+	private static final Validation.Level CHECK_LEVEL = Validation.levelFor(GeoFeature.class);
+	private static final Validation.Counter CHECK_COUNTER = Validation.counterFor(GeoFeature.class);
+
 	/**
-	 * Checks if representation invariant holds for every GeoSegment gs
+	 * Checks if representation invariant holds for every GeoFeature gf, on
+	 * the accesses selected by the Validation level of this class
 	 * @throws AssertionError if representation invariant is violated
 	 * */
 	private void checkRep(){
-		assert (name != null && !name.isEmpty()) : "invalid segment name";
-		assert (start != null && end != null) : "invalid geo points";
-		assert (geo_segments != null && geo_segments.size() >= 1) : "invalid geoSegment";
+		if(Validation.onAccess(CHECK_LEVEL))
+			verifyRep();
+	}
+
+	/**
+	 * Checks if representation invariant holds for a new GeoFeature. Unless
+	 * the Validation level of this class is FULL, only the last segment is
+	 * checked, since the segments before it belong to a GeoFeature that was
+	 * checked when it was created, or were checked by a RouteBuilder.
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void checkNewRep(){
+		if(CHECK_LEVEL == Validation.Level.FULL)
+			verifyRep();
+		else if(Validation.onConstruction(CHECK_LEVEL))
+			verifyTail();
+	}
+
+	/**
+	 * Checks the whole representation invariant. Takes O(number of segments).
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void verifyRep(){
+		long start_time = Validation.start();
+		verifyFields();
 		for(int i=0; i<geo_segments.size()-1; ++i){
-			assert geo_segments.get(i).getP2().equals(geo_segments.get(i+1).getP1()) : "invalid geo feature points";
+			Validation.check(geo_segments.get(i).getP2().equals(geo_segments.get(i+1).getP1()), "invalid geo feature points");
 		}
+		Validation.check(hash == geo_segments.hashCode(), "invalid hash");
 		for(GeoSegment gs : geo_segments){
-			assert gs.getName().equals(name) : "invalid segment name";
+			Validation.check(gs.getNameId() == name_id, "invalid segment name");
 		}
+		Validation.finish(CHECK_COUNTER, start_time);
+	}
+
+	/**
+	 * Checks the representation invariant at the last segment only. Takes
+	 * O(1).
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void verifyTail(){
+		long start_time = Validation.start();
+		verifyFields();
+		int n = geo_segments.size();
+		GeoSegment last = geo_segments.last();
+		Validation.check(n < 2 || geo_segments.get(n-2).getP2().equals(last.getP1()), "invalid geo feature points");
+		Validation.check(last.getNameId() == name_id, "invalid segment name");
+		Validation.check(last.getP2().equals(end), "invalid geo points");
+		Validation.finish(CHECK_COUNTER, start_time);
+	}
+
+	private void verifyFields(){
+		Validation.check(name != null && !name.isEmpty(), "invalid segment name");
+		Validation.check(start != null && end != null, "invalid geo points");
+		Validation.check(geo_segments != null && geo_segments.size() >= 1, "invalid geoSegment");
+		Validation.check(length_mm >= 0, "invalid length");
 	}
 
 	/**
@@ -96,14 +160,15 @@ public class GeoFeature {
      **/
   	public GeoFeature(GeoSegment gs) {
 		name = gs.getName();
+		name_id = gs.getNameId();
 		start_heading = gs.getHeading();
 		end_heading = start_heading;
 		start = gs.getP1();
 		end = gs.getP2();
-		length = gs.getLength();
-		geo_segments = new ArrayList<>();
-		geo_segments.add(gs);
-		checkRep();
+		length_mm = gs.getLengthMillimeters();
+		geo_segments = PersistentList.of(gs);
+		hash = 31 + gs.hashCode();
+		checkNewRep();
   	}
   	/**
 	 * Constructs a new copy of Geo feature
@@ -114,16 +179,58 @@ public class GeoFeature {
 	 * **/
   	public GeoFeature(GeoFeature gf){
   		name = gf.name;
+  		name_id = gf.name_id;
   		start_heading = gf.start_heading;
   		end_heading = gf.end_heading;
-  		start = new GeoPoint(gf.start);
-  		end = new GeoPoint(gf.end);
-  		length = gf.length;
-  		geo_segments = new ArrayList<>();
-  		for(GeoSegment gs: gf.geo_segments){
-  			geo_segments.add(new GeoSegment(gs));
-		}
-  		checkRep();
+  		start = gf.start;
+  		end = gf.end;
+  		length_mm = gf.length_mm;
+  		geo_segments = gf.geo_segments;
+  		hash = gf.hash;
+  		checkNewRep();
+	}
+
+	/**
+	 * Constructs a GeoFeature over a run of segments.
+	 * @requires segments != null && segments is not empty &&
+	 * 			 segments are contiguous and share the same name &&
+	 * 			 length_mm = sum(0 <= i < segments.size()) . segments[i].getLengthMillimeters() &&
+	 * 			 hash = segments.hashCode()
+	 * @effects constructs a new GeoFeature whose geoSegments are segments,
+	 * 			without copying them
+	 **/
+	GeoFeature(PersistentList<GeoSegment> segments, long length_mm, int hash){
+		GeoSegment first = segments.get(0), last = segments.last();
+		name = first.getName();
+		name_id = first.getNameId();
+		start_heading = first.getHeading();
+		end_heading = last.getHeading();
+		start = first.getP1();
+		end = last.getP2();
+		this.length_mm = length_mm;
+		geo_segments = segments;
+		this.hash = hash;
+		checkNewRep();
+	}
+
+	/**
+	 * Constructs the GeoFeature that results from appending gs to prev.
+	 * @requires prev != null && gs != null && gs.p1 = prev.end &&
+	 * 			 gs.name = prev.name
+	 * @effects constructs a new GeoFeature that shares the segments of prev
+	 * 			and ends with gs
+	 **/
+	private GeoFeature(GeoFeature prev, GeoSegment gs){
+		name = prev.name;
+		name_id = prev.name_id;
+		start_heading = prev.start_heading;
+		end_heading = gs.getHeading();
+		start = prev.start;
+		end = gs.getP2();
+		length_mm = prev.length_mm + gs.getLengthMillimeters();
+		geo_segments = prev.geo_segments.append(gs);
+		hash = 31 * prev.hash + gs.hashCode();
+		checkNewRep();
 	}
 
  	/**
@@ -132,7 +239,18 @@ public class GeoFeature {
       */
   	public String getName() {
   		checkRep();
-		return new String(name);
+		return name;
+  	}
+
+
+ 	/**
+ 	  * Returns the id of the name of geographic feature.
+      * @return the id of name in StreetNames.global(), which is the name id
+      *         of every segment of this feature
+      */
+  	public int getNameId() {
+  		checkRep();
+		return name_id;
   	}
 
 
@@ -142,7 +260,7 @@ public class GeoFeature {
      */
   	public GeoPoint getStart() {
   		checkRep();
-		return new GeoPoint(start);
+		return start;
   	}
 
 
@@ -152,7 +270,7 @@ public class GeoFeature {
      */
   	public GeoPoint getEnd() {
   		checkRep();
-		return new GeoPoint(end);
+		return end;
   	}
 
 
@@ -187,7 +305,18 @@ public class GeoFeature {
      */
   	public double getLength() {
   		checkRep();
-		return length;
+		return Lengths.toKilometers(length_mm);
+  	}
+
+
+  	/**
+  	 * Returns total length of the geographic feature in whole millimeters.
+     * @return the sum of the getLengthMillimeters() of the segments of this
+     *         GeoFeature
+     */
+  	public long getLengthMillimeters() {
+  		checkRep();
+		return length_mm;
   	}
 
 
@@ -202,16 +331,7 @@ public class GeoFeature {
      **/
   	public GeoFeature addSegment(GeoSegment gs) {
   		checkRep();
-		GeoFeature gf = new GeoFeature(new GeoSegment(geo_segments.get(0)));
-		for(int i=1; i<geo_segments.size(); ++i){
-			gf.geo_segments.add(new GeoSegment(geo_segments.get(i)));
-		}
-		gf.geo_segments.add(new GeoSegment(gs));
-		gf.length = length + gs.getLength();
-		gf.end = new GeoPoint(gs.getP2());
-		gf.end_heading = gs.getHeading();
-		checkRep();
-  		return gf;
+  		return new GeoFeature(this, gs);
   	}
 
 
@@ -235,12 +355,20 @@ public class GeoFeature {
      */
   	public Iterator<GeoSegment> getGeoSegments() {
   		checkRep();
-  		List<GeoSegment> geo_seg_copy = new ArrayList<>();
-  		for(GeoSegment gs: geo_segments){
-  			geo_seg_copy.add(new GeoSegment(gs));
-		}
+		return geo_segments.iterator();
+  	}
+
+
+  	/**
+  	 * Returns a read-only view of the GeoSegments of this GeoFeature. The
+  	 * view is not a copy; its iterators and spliterators visit the segments
+  	 * in order without allocating per segment.
+  	 * @return an unmodifiable List l such that l = this.geoSegments, in the
+  	 * 		   order documented by getGeoSegments()
+  	 **/
+  	public List<GeoSegment> geoSegmentList() {
   		checkRep();
-		return geo_seg_copy.iterator();
+  		return geo_segments;
   	}
 
 
@@ -252,10 +380,13 @@ public class GeoFeature {
      **/
   	public boolean equals(Object o) {
   		checkRep();
+		if(o == this)
+			return true;
 		if((o == null) || !(o instanceof GeoFeature))
 			return false;
 		checkRep();
-		return geo_segments.equals(((GeoFeature) o).geo_segments);
+		GeoFeature gf = (GeoFeature) o;
+		return hash == gf.hash && geo_segments.equals(gf.geo_segments);
   	}
 
 
@@ -264,10 +395,8 @@ public class GeoFeature {
      * @return a hash code for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// improved performance.
-    	
-    	return 1;
+  		checkRep();
+    	return hash;
   	}
 
 
@@ -0,0 +1,167 @@
+package homework1;
+
+/**
+ * GeoKernels computes distances and headings for many points at once. The
+ * points are given as parallel arrays of latitudes and longitudes, in
+ * millionths of degrees, and the results are written to a double array, so
+ * a batch creates no objects and makes no calls per pair.
+ * <p>
+ * The distance kernels are straight-line loops of integer subtractions,
+ * multiplications and a square root, with no branches and no calls, which
+ * the JIT compiler can unroll and compile to vector instructions. Their
+ * results differ from <tt>GeoPoint.distanceTo</tt> by less than 1e-10 km
+ * (0.1 micrometers): they subtract the integer coordinates exactly before
+ * scaling, where distanceTo converts each coordinate to degrees first and
+ * loses a little to the rounding of the conversion.
+ * <p>
+ * The heading kernels use the same spherical formula as
+ * <tt>GeoPoint.headingTo</tt>, evaluated in the same order, and return
+ * exactly the same values. Their trigonometric calls do not vectorize; what
+ * they save is the objects and, for polylines, half of the calls, since the
+ * sine and cosine of each point's latitude are shared by the two segments
+ * that meet at it.
+ * <p>
+ * Every kernel works on a range [from, to) of its output so that a large
+ * batch can be split between threads.
+ **/
+public final class GeoKernels {
+
+	private static final double KM_PER_MILLIONTH_LATITUDE = GeoPoint.KM_PER_DEGREE_LATITUDE / GeoPoint.MILLION;
+	private static final double KM_PER_MILLIONTH_LONGITUDE = GeoPoint.KM_PER_DEGREE_LONGITUDE / GeoPoint.MILLION;
+
+	private GeoKernels() {
+	}
+
+	/**
+	 * Computes the distances between pairs of points.
+	 * @requires all arrays are non-null && 0 <= from <= to <= the length of
+	 *           every array && every (latitude, longitude) is a valid GeoPoint
+	 * @modifies out
+	 * @effects out[i] = distance from (lat1[i], lon1[i]) to (lat2[i], lon2[i])
+	 *          for from <= i < to, in kilometers, as GeoPoint.distanceTo
+	 *          computes it
+	 **/
+	public static void distances(int[] lat1, int[] lon1, int[] lat2, int[] lon2, double[] out, int from, int to) {
+		checkRange(from, to, lat1.length, lon1.length, lat2.length, lon2.length, out.length);
+		for (int i = from; i < to; ++i) {
+			double dy = (lat2[i] - lat1[i]) * KM_PER_MILLIONTH_LATITUDE;
+			double dx = (lon2[i] - lon1[i]) * KM_PER_MILLIONTH_LONGITUDE;
+			out[i] = Math.sqrt(dy * dy + dx * dx);
+		}
+	}
+
+	/**
+	 * Computes the distances from one point to many.
+	 * @requires all arrays are non-null && 0 <= from <= to <= the length of
+	 *           every array && every (latitude, longitude) is a valid GeoPoint
+	 * @modifies out
+	 * @effects out[i] = distance from (latitude, longitude) to (lat[i], lon[i])
+	 *          for from <= i < to, in kilometers, as GeoPoint.distanceTo
+	 *          computes it
+	 **/
+	public static void distancesFrom(int latitude, int longitude, int[] lat, int[] lon, double[] out,
+									 int from, int to) {
+		checkRange(from, to, lat.length, lon.length, out.length);
+		for (int i = from; i < to; ++i) {
+			double dy = (lat[i] - latitude) * KM_PER_MILLIONTH_LATITUDE;
+			double dx = (lon[i] - longitude) * KM_PER_MILLIONTH_LONGITUDE;
+			out[i] = Math.sqrt(dy * dy + dx * dx);
+		}
+	}
+
+	/**
+	 * Computes the lengths of the segments of a polyline.
+	 * @requires all arrays are non-null && 0 <= from <= to <= out.length &&
+	 *           (from == to || to < the length of lat and of lon) && every
+	 *           (latitude, longitude) is a valid GeoPoint
+	 * @modifies out
+	 * @effects out[i] = distance from (lat[i], lon[i]) to (lat[i+1], lon[i+1])
+	 *          for from <= i < to, in kilometers, as GeoPoint.distanceTo
+	 *          computes it
+	 **/
+	public static void segmentLengths(int[] lat, int[] lon, double[] out, int from, int to) {
+		if (from < to)
+			checkRange(from, to + 1, lat.length, lon.length);
+		checkRange(from, to, out.length);
+		for (int i = from; i < to; ++i) {
+			double dy = (lat[i + 1] - lat[i]) * KM_PER_MILLIONTH_LATITUDE;
+			double dx = (lon[i + 1] - lon[i]) * KM_PER_MILLIONTH_LONGITUDE;
+			out[i] = Math.sqrt(dy * dy + dx * dx);
+		}
+	}
+
+	/**
+	 * Computes the headings between pairs of points.
+	 * @requires all arrays are non-null && 0 <= from <= to <= the length of
+	 *           every array && every (latitude, longitude) is a valid GeoPoint
+	 * @modifies out
+	 * @effects out[i] = heading from (lat1[i], lon1[i]) to (lat2[i], lon2[i])
+	 *          for from <= i < to, in degrees, as GeoPoint.headingTo computes
+	 *          it; 0 where the two points are equal
+	 **/
+	public static void headings(int[] lat1, int[] lon1, int[] lat2, int[] lon2, double[] out, int from, int to) {
+		checkRange(from, to, lat1.length, lon1.length, lat2.length, lon2.length, out.length);
+		for (int i = from; i < to; ++i) {
+			double phi1 = radians(lat1[i]), phi2 = radians(lat2[i]);
+			out[i] = heading(Math.sin(phi1), Math.cos(phi1), Math.sin(phi2), Math.cos(phi2),
+					radians(lon2[i]) - radians(lon1[i]));
+		}
+	}
+
+	/**
+	 * Computes the headings of the segments of a polyline.
+	 * @requires all arrays are non-null && 0 <= from <= to <= out.length &&
+	 *           (from == to || to < the length of lat and of lon) && every
+	 *           (latitude, longitude) is a valid GeoPoint
+	 * @modifies out
+	 * @effects out[i] = heading from (lat[i], lon[i]) to (lat[i+1], lon[i+1])
+	 *          for from <= i < to, in degrees, as GeoPoint.headingTo computes
+	 *          it; 0 where the two points are equal
+	 **/
+	public static void segmentHeadings(int[] lat, int[] lon, double[] out, int from, int to) {
+		if (from < to)
+			checkRange(from, to + 1, lat.length, lon.length);
+		checkRange(from, to, out.length);
+		if (from == to)
+			return;
+		double phi = radians(lat[from]);
+		double sin1 = Math.sin(phi), cos1 = Math.cos(phi);
+		for (int i = from; i < to; ++i) {
+			phi = radians(lat[i + 1]);
+			double sin2 = Math.sin(phi), cos2 = Math.cos(phi);
+			out[i] = heading(sin1, cos1, sin2, cos2, radians(lon[i + 1]) - radians(lon[i]));
+			sin1 = sin2;
+			cos1 = cos2;
+		}
+	}
+
+	/**
+	 * Converts millionths of degrees to radians as GeoPoint.headingTo does.
+	 **/
+	private static double radians(int millionths) {
+		return Math.toRadians((double) millionths / GeoPoint.MILLION);
+	}
+
+	/**
+	 * Returns the initial compass heading of the great circle between two
+	 * latitudes, given by their sines and cosines, that are delta_long
+	 * radians apart, as GeoPoint.headingTo computes it.
+	 **/
+	private static double heading(double sin1, double cos1, double sin2, double cos2, double delta_long) {
+		double arg1 = cos2 * Math.sin(delta_long);
+		double arg2 = cos1 * sin2 - sin1 * cos2 * Math.cos(delta_long);
+		double deg = Math.toDegrees(Math.atan2(arg1, arg2));
+		return (deg < 0) ? (deg + 360) : deg;
+	}
+
+	/**
+	 * Throws unless [from, to) is a range of every one of the lengths.
+	 **/
+	private static void checkRange(int from, int to, int... lengths) {
+		if (from < 0 || from > to)
+			throw new IndexOutOfBoundsException("[" + from + ", " + to + ")");
+		for (int length : lengths)
+			if (to > length)
+				throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + length);
+	}
+}
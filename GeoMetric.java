@@ -0,0 +1,209 @@
+package homework1;
+
+/**
+ * A GeoMetric is a way of computing the distance and the compass heading
+ * between two points. GeoSegments are built with a GeoMetric, and the
+ * RoadNetworks, Routers and SpatialIndices made from them use the metric of
+ * their segments.
+ * <p>
+ * TECHNION is the model of GeoPoint: distances on a flat surface with the
+ * kilometers per degree of the Technion, and headings along great circles.
+ * It is accurate only near the Technion, and it is the metric of segments
+ * built without one.
+ * <p>
+ * SPHERICAL computes great-circle distances (haversine) and initial
+ * great-circle headings on a sphere of the mean earth radius. It is
+ * accurate anywhere and for any distance, and costs several trigonometric
+ * calls per pair.
+ * <p>
+ * EQUIRECTANGULAR projects the two points onto a plane tangent at their mean
+ * latitude, with the cosine of that latitude read from a table of 0.1
+ * degree bands and interpolated linearly. For points less than 100 km
+ * apart and within 70 degrees of the equator its distances agree with
+ * SPHERICAL to within 0.01%. Its heading is the heading at the midpoint
+ * rather than at the start, which differs from SPHERICAL by less than 0.1
+ * degree for points less than 10 km apart within 60 degrees of the
+ * equator. It costs one <tt>atan2</tt> for a heading and no trigonometric
+ * call for a distance.
+ * <p>
+ * TILED measures on a plane as EQUIRECTANGULAR does, but with the scale
+ * factors of the WGS84 ellipsoid kept per one-degree tile of latitude by
+ * TiledProjection. It is the metric to use for data far from the Technion:
+ * it stays accurate worldwide and costs about as much as TECHNION.
+ * <p>
+ * Points are given in millionths of degrees, as GeoPoint stores them.
+ * Distances are in kilometers, and headings in degrees, in [0, 360); the
+ * heading between equal points is 0.
+ **/
+public enum GeoMetric {
+
+	/** Flat distances and great-circle headings, as GeoPoint computes them. **/
+	TECHNION {
+		public double distance(int latitude1, int longitude1, int latitude2, int longitude2) {
+			return GeoPoint.distance(latitude1, longitude1, latitude2, longitude2);
+		}
+
+		public double heading(int latitude1, int longitude1, int latitude2, int longitude2) {
+			return GeoPoint.heading(latitude1, longitude1, latitude2, longitude2);
+		}
+
+		public double kmPerLatitudeUnit(int latitude) {
+			return GeoPoint.KM_PER_DEGREE_LATITUDE / GeoPoint.MILLION;
+		}
+
+		public double kmPerLongitudeUnit(int latitude) {
+			return GeoPoint.KM_PER_DEGREE_LONGITUDE / GeoPoint.MILLION;
+		}
+	},
+
+	/** Great-circle distances and headings on a spherical earth. **/
+	SPHERICAL {
+		public double distance(int latitude1, int longitude1, int latitude2, int longitude2) {
+			double lat1 = Math.toRadians((double) latitude1 / GeoPoint.MILLION);
+			double lat2 = Math.toRadians((double) latitude2 / GeoPoint.MILLION);
+			double half_lat = 0.5 * (lat2 - lat1);
+			double half_long = 0.5 * Math.toRadians((double) (longitude2 - longitude1) / GeoPoint.MILLION);
+			double sin_lat = Math.sin(half_lat), sin_long = Math.sin(half_long);
+			double h = sin_lat * sin_lat + Math.cos(lat1) * Math.cos(lat2) * sin_long * sin_long;
+			return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+		}
+
+		public double heading(int latitude1, int longitude1, int latitude2, int longitude2) {
+			return GeoPoint.heading(latitude1, longitude1, latitude2, longitude2);
+		}
+	},
+
+	/** Distances and headings on a plane tangent at the mean latitude. **/
+	EQUIRECTANGULAR {
+		public double distance(int latitude1, int longitude1, int latitude2, int longitude2) {
+			double dy = (latitude2 - latitude1) * KM_PER_UNIT;
+			double dx = wrap(longitude2 - (long) longitude1) * KM_PER_UNIT
+					* cosine((int) (((long) latitude1 + latitude2) >> 1));
+			return Math.sqrt(dy * dy + dx * dx);
+		}
+
+		public double heading(int latitude1, int longitude1, int latitude2, int longitude2) {
+			double dy = latitude2 - latitude1;
+			double dx = wrap(longitude2 - (long) longitude1) * cosine((int) (((long) latitude1 + latitude2) >> 1));
+			double deg = Math.toDegrees(Math.atan2(dx, dy));
+			return (deg < 0) ? (deg + 360) : deg;
+		}
+	},
+
+	/** Distances and headings on a plane scaled per tile of latitude for the WGS84 ellipsoid. **/
+	TILED {
+		public double distance(int latitude1, int longitude1, int latitude2, int longitude2) {
+			return TiledProjection.distance(latitude1, longitude1, latitude2, longitude2);
+		}
+
+		public double heading(int latitude1, int longitude1, int latitude2, int longitude2) {
+			return TiledProjection.heading(latitude1, longitude1, latitude2, longitude2);
+		}
+
+		public double kmPerLatitudeUnit(int latitude) {
+			return TiledProjection.kmPerLatitudeUnit(latitude);
+		}
+
+		public double kmPerLongitudeUnit(int latitude) {
+			return TiledProjection.kmPerLongitudeUnit(latitude);
+		}
+	};
+
+	/** The mean radius of the earth, in kilometers. **/
+	public static final double EARTH_RADIUS_KM = 6371.0088;
+
+	/** Kilometers per millionth of a degree along a great circle. **/
+	private static final double KM_PER_UNIT = EARTH_RADIUS_KM * Math.PI / 180 / GeoPoint.MILLION;
+
+	/** Millionths of degrees per band of the cosine table. **/
+	private static final int BAND = 100000;
+
+	/** COSINES[i] = cos(i * BAND), for every band from the equator to a pole, and one more. **/
+	private static final double[] COSINES = new double[GeoPoint.MAX_LATITUDE / BAND + 2];
+
+	static {
+		for (int i = 0; i < COSINES.length; ++i)
+			COSINES[i] = Math.cos(Math.toRadians((double) i * BAND / GeoPoint.MILLION));
+	}
+
+	/**
+	 * Computes the distance between two points.
+	 * @requires (latitude1, longitude1) and (latitude2, longitude2) are
+	 *           valid GeoPoints
+	 * @return the distance between them, in kilometers, by this metric
+	 **/
+	public abstract double distance(int latitude1, int longitude1, int latitude2, int longitude2);
+
+	/**
+	 * Computes the compass heading between two points.
+	 * @requires (latitude1, longitude1) and (latitude2, longitude2) are
+	 *           valid GeoPoints
+	 * @return the compass heading h from the first to the second, in
+	 *         degrees, by this metric, such that 0 <= h < 360
+	 **/
+	public abstract double heading(int latitude1, int longitude1, int latitude2, int longitude2);
+
+	/**
+	 * Computes the distance between two GeoPoints.
+	 * @requires p1 != null && p2 != null
+	 * @return distance(p1.latitude, p1.longitude, p2.latitude, p2.longitude)
+	 **/
+	public double distance(GeoPoint p1, GeoPoint p2) {
+		return distance(p1.getLatitude(), p1.getLongitude(), p2.getLatitude(), p2.getLongitude());
+	}
+
+	/**
+	 * Computes the compass heading between two GeoPoints.
+	 * @requires p1 != null && p2 != null
+	 * @return heading(p1.latitude, p1.longitude, p2.latitude, p2.longitude)
+	 **/
+	public double heading(GeoPoint p1, GeoPoint p2) {
+		return heading(p1.getLatitude(), p1.getLongitude(), p2.getLatitude(), p2.getLongitude());
+	}
+
+	/**
+	 * Returns the length of a millionth of a degree of latitude at a
+	 * latitude, for projecting points near that latitude onto a plane.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE
+	 * @return the kilometers per millionth of a degree of latitude at
+	 *         latitude
+	 **/
+	public double kmPerLatitudeUnit(int latitude) {
+		return KM_PER_UNIT;
+	}
+
+	/**
+	 * Returns the length of a millionth of a degree of longitude at a
+	 * latitude, for projecting points near that latitude onto a plane.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE
+	 * @return the kilometers per millionth of a degree of longitude at
+	 *         latitude
+	 **/
+	public double kmPerLongitudeUnit(int latitude) {
+		return KM_PER_UNIT * cosine(latitude);
+	}
+
+	/**
+	 * Returns the cosine of a latitude, interpolated from COSINES.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE
+	 **/
+	static double cosine(int latitude) {
+		int magnitude = Math.abs(latitude);
+		int band = magnitude / BAND;
+		double fraction = (double) (magnitude - band * BAND) / BAND;
+		double low = COSINES[band];
+		return low + fraction * (COSINES[band + 1] - low);
+	}
+
+	/**
+	 * Returns a difference of longitudes, in millionths of degrees, taken
+	 * the short way around the earth.
+	 **/
+	static long wrap(long delta) {
+		if (delta > GeoPoint.MAX_LONGITUDE)
+			return delta - 2L * GeoPoint.MAX_LONGITUDE;
+		if (delta < GeoPoint.MIN_LONGITUDE)
+			return delta - 2L * GeoPoint.MIN_LONGITUDE;
+		return delta;
+	}
+}
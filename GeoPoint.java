@@ -22,6 +22,11 @@ package homework1;
  * implementation may use these values when determining distances and
  * headings.
  * <p>
+ * distanceTo() uses these values, and so is accurate only near the
+ * Technion. For data from elsewhere, build segments with
+ * <tt>GeoMetric.TILED</tt>, which measures with per-latitude scale
+ * factors that are accurate worldwide.
+ * <p>
  * <b>The following fields are used in the specification:</b>
  * <pre>
  *   latitude :  real        // latitude measured in degrees
@@ -79,14 +84,34 @@ public class GeoPoint {
 	// (MIN_LATITUDE <= p.latitude <= MAX_LATITUDE) and
 	// (MIN_LONGITUDE <= p.longitude <= MAX_LONGITUDE)
 
+	private static final Validation.Level CHECK_LEVEL = Validation.levelFor(GeoPoint.class);
+	private static final Validation.Counter CHECK_COUNTER = Validation.counterFor(GeoPoint.class);
+
 	/**
-	 * Checks if representation invariant holds for every GeoPoint p
+	 * Checks if representation invariant holds for every GeoPoint p, on the
+	 * accesses selected by the Validation level of this class
 	 * @throws AssertionError if representation invariant is violated
 	 * */
 	private void checkRep(){
-//		assert (this != null) : "null GeoPoint";
-		assert (latitude >= MIN_LATITUDE && latitude <= MAX_LATITUDE) : "invalid latitude input";
-		assert (longitude >= MIN_LONGITUDE && longitude <= MAX_LONGITUDE) : "invalid longitude input";
+		if(Validation.onAccess(CHECK_LEVEL))
+			verifyRep();
+	}
+
+	/**
+	 * Checks if representation invariant holds for a new GeoPoint, unless
+	 * validation of this class is off
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void checkNewRep(){
+		if(Validation.onConstruction(CHECK_LEVEL))
+			verifyRep();
+	}
+
+	private void verifyRep(){
+		long start = Validation.start();
+		Validation.check(latitude >= MIN_LATITUDE && latitude <= MAX_LATITUDE, "invalid latitude input");
+		Validation.check(longitude >= MIN_LONGITUDE && longitude <= MAX_LONGITUDE, "invalid longitude input");
+		Validation.finish(CHECK_COUNTER, start);
 	}
   	/**
   	 * Constructs GeoPoint from a latitude and longitude.
@@ -100,7 +125,7 @@ public class GeoPoint {
   	public GeoPoint(int latitude, int longitude) {
 		this.latitude = latitude;
   		this.longitude = longitude;
-		checkRep();
+		checkNewRep();
 	}
 
   	/**
@@ -111,7 +136,7 @@ public class GeoPoint {
   		// client should make sure the gp != null, not the developers.
   		latitude = gp.latitude;
   		longitude = gp.longitude;
-  		checkRep();
+  		checkNewRep();
 	}
   	 
   	/**
@@ -142,14 +167,23 @@ public class GeoPoint {
      **/
   	public double distanceTo(GeoPoint gp) {
   		checkRep();
-		double lat1 = ((double)this.latitude/MILLION), lat2 = ((double)gp.latitude/MILLION);
-		double long1 = ((double)this.longitude/MILLION), long2 = ((double)gp.longitude/MILLION);
-		double delta_long = Math.abs(long1 - long2);
-		double delta_lat = Math.abs(lat1 - lat2);
-		double arg1 = Math.pow(KM_PER_DEGREE_LATITUDE*delta_lat,2);
-		double arg2 = Math.pow(KM_PER_DEGREE_LONGITUDE*delta_long,2);
-		checkRep();
-		return Math.sqrt(arg1+arg2);
+		return distance(latitude, longitude, gp.latitude, gp.longitude);
+  	}
+
+
+  	/**
+     * Computes the distance between two points given in millionths of
+     * degrees, as distanceTo() does, without creating GeoPoints.
+     * @return the distance from (latitude1, longitude1) to
+     *         (latitude2, longitude2), using the flat-surface, near the
+     *         Technion approximation.
+     **/
+  	static double distance(int latitude1, int longitude1, int latitude2, int longitude2) {
+		double lat1 = ((double)latitude1/MILLION), lat2 = ((double)latitude2/MILLION);
+		double long1 = ((double)longitude1/MILLION), long2 = ((double)longitude2/MILLION);
+		double delta_long = KM_PER_DEGREE_LONGITUDE*Math.abs(long1 - long2);
+		double delta_lat = KM_PER_DEGREE_LATITUDE*Math.abs(lat1 - lat2);
+		return Math.sqrt(delta_lat*delta_lat + delta_long*delta_long);
   	}
 
 
@@ -172,13 +206,23 @@ public class GeoPoint {
 		 // mathematical convention, "east" is 0 degrees, and degrees
 		 // increase in the counterclockwise direction. 
 		checkRep();
-		double lat1 = Math.toRadians(((double)this.latitude/MILLION)), lat2 = Math.toRadians(((double)gp.latitude/MILLION));
-		double long1 = Math.toRadians(((double)this.longitude/MILLION)), long2 = Math.toRadians(((double)gp.longitude/MILLION));
+		return heading(latitude, longitude, gp.latitude, gp.longitude);
+  	}
+
+
+  	/**
+     * Computes the compass heading between two points given in millionths
+     * of degrees, as headingTo() does, without creating GeoPoints.
+     * @return the compass heading h from (latitude1, longitude1) to
+     *         (latitude2, longitude2), in degrees, such that 0 <= h < 360.
+     **/
+  	static double heading(int latitude1, int longitude1, int latitude2, int longitude2) {
+		double lat1 = Math.toRadians(((double)latitude1/MILLION)), lat2 = Math.toRadians(((double)latitude2/MILLION));
+		double long1 = Math.toRadians(((double)longitude1/MILLION)), long2 = Math.toRadians(((double)longitude2/MILLION));
 		double delta_long = long2 - long1;
 		double arg1 = Math.cos(lat2)*Math.sin(delta_long);
 		double arg2 = Math.cos(lat1)*Math.sin(lat2) - Math.sin(lat1)*Math.cos(lat2)*Math.cos(delta_long);
 		double deg = Math.toDegrees(Math.atan2(arg1,arg2));
-		checkRep();
 		return (deg < 0) ? (deg + 360) : deg;
   	}
 
@@ -202,10 +246,12 @@ public class GeoPoint {
      * @return a hash code value for this GeoPoint.
    	 **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// for improved performance.
-
-    	return 1;
+  		// Nearby points differ only in the low bits of both coordinates, so
+  		// the packed coordinates are multiplied by a large odd constant to
+  		// spread those bits over the whole hash. This is cheaper than
+  		// caching the hash in every GeoPoint.
+  		long packed = ((long) latitude << 32) | (longitude & 0xFFFFFFFFL);
+  		return Long.hashCode(packed * 0x9E3779B97F4A7C15L);
   	}
 
 
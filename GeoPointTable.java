@@ -0,0 +1,315 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A GeoPointTable is a growable, columnar list of geographic points. Each
+ * point is kept as one long with its latitude in the high 32 bits and its
+ * longitude in the low 32 bits, so a table costs 8 bytes per point instead
+ * of a GeoPoint object per point, and code that refers to points by their
+ * index in a table allocates nothing to read them.
+ * <p>
+ * Points are read by index, or through a Cursor: a reusable flyweight that
+ * is moved from point to point and exposes the usual GeoPoint queries.
+ * A table can also intern points, so that every distinct point gets a
+ * single index; the lookup map is created on the first call that needs it.
+ * <p>
+ * GeoPointTables are mutable, but only by appending. They are not
+ * thread-safe while points are added; once filled they may be read
+ * concurrently.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   points : sequence of GeoPoint   // the points, by index
+ * </pre>
+ **/
+public final class GeoPointTable {
+
+	private long[] packed;
+	private int size;
+	private volatile LongIntHashMap indices;	// null until first needed
+
+	// Abs. Function for every GeoPointTable t:
+	// t.points[i] = GeoPoint(unpackLatitude(t.packed[i]), unpackLongitude(t.packed[i]))
+	//   for 0 <= i < t.size
+
+	// Rep. Invariant for every GeoPointTable t:
+	// 0 <= t.size <= t.packed.length &&
+	// every t.packed[i] holds a valid latitude and longitude &&
+	// if t.indices != null, it maps each distinct t.packed[i] to the
+	//   smallest such i
+
+	/**
+	 * A movable view of one point of a table. Cursors are mutable and are
+	 * not thread-safe.
+	 **/
+	public final class Cursor {
+		private int index = -1;
+		private long point;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Moves this cursor to a point.
+		 * @requires 0 <= index < size()
+		 * @modifies this
+		 * @effects this views points[index]
+		 * @return this
+		 **/
+		public Cursor moveTo(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException(index + " of " + size);
+			this.index = index;
+			point = packed[index];
+			return this;
+		}
+
+		/**
+		 * Returns the index of the viewed point.
+		 * @return the index this cursor was last moved to, or -1
+		 **/
+		public int index() {
+			return index;
+		}
+
+		/**
+		 * Returns the latitude of the viewed point.
+		 * @return the latitude, in millionths of degrees
+		 **/
+		public int getLatitude() {
+			return unpackLatitude(point);
+		}
+
+		/**
+		 * Returns the longitude of the viewed point.
+		 * @return the longitude, in millionths of degrees
+		 **/
+		public int getLongitude() {
+			return unpackLongitude(point);
+		}
+
+		/**
+		 * Computes the distance to the point viewed by another cursor.
+		 * @requires other != null
+		 * @return the distance, in kilometers, as GeoPoint.distanceTo
+		 *         computes it
+		 **/
+		public double distanceTo(Cursor other) {
+			return GeoPoint.distance(unpackLatitude(point), unpackLongitude(point),
+					unpackLatitude(other.point), unpackLongitude(other.point));
+		}
+
+		/**
+		 * Returns whether this cursor views a point equal to gp.
+		 * @requires gp != null
+		 * @return true iff the viewed point equals gp
+		 **/
+		public boolean isAt(GeoPoint gp) {
+			return point == pack(gp.getLatitude(), gp.getLongitude());
+		}
+
+		/**
+		 * Returns the viewed point as a GeoPoint.
+		 * @return a new GeoPoint equal to the viewed point
+		 **/
+		public GeoPoint toGeoPoint() {
+			return new GeoPoint(unpackLatitude(point), unpackLongitude(point));
+		}
+	}
+
+	/**
+	 * Constructs an empty table.
+	 * @effects constructs a new GeoPointTable t with t.points = []
+	 **/
+	public GeoPointTable() {
+		this(16);
+	}
+
+	/**
+	 * Constructs an empty table with room for capacity points.
+	 * @requires capacity >= 0
+	 * @effects constructs a new GeoPointTable t with t.points = []
+	 **/
+	public GeoPointTable(int capacity) {
+		packed = new long[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Packs a coordinate pair into the long a table stores.
+	 * @return a long that is distinct for every distinct (latitude, longitude)
+	 **/
+	static long pack(int latitude, int longitude) {
+		return ((long) latitude << 32) | (longitude & 0xFFFFFFFFL);
+	}
+
+	static int unpackLatitude(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	static int unpackLongitude(long packed) {
+		return (int) packed;
+	}
+
+	/**
+	 * Appends a point.
+	 * @requires (latitude, longitude) is a valid GeoPoint
+	 * @modifies this
+	 * @effects appends GeoPoint(latitude, longitude) to this.points
+	 * @return the index of the new point
+	 **/
+	public int add(int latitude, int longitude) {
+		long point = pack(latitude, longitude);
+		if (size == packed.length)
+			packed = Arrays.copyOf(packed, size * 2);
+		packed[size] = point;
+		if (indices != null)
+			indices.putIfAbsent(point, size);
+		return size++;
+	}
+
+	/**
+	 * Appends a point.
+	 * @requires gp != null
+	 * @modifies this
+	 * @effects appends gp to this.points
+	 * @return the index of the new point
+	 **/
+	public int add(GeoPoint gp) {
+		return add(gp.getLatitude(), gp.getLongitude());
+	}
+
+	/**
+	 * Returns the index of a point, appending it if it is not in the table.
+	 * @requires (latitude, longitude) is a valid GeoPoint
+	 * @modifies this
+	 * @effects appends GeoPoint(latitude, longitude) to this.points if it
+	 *          is not there
+	 * @return the smallest i such that this.points[i] equals the point
+	 **/
+	public int intern(int latitude, int longitude) {
+		int index = indices().putIfAbsent(pack(latitude, longitude), size);
+		if (index == size) {
+			if (size == packed.length)
+				packed = Arrays.copyOf(packed, size * 2);
+			packed[size++] = pack(latitude, longitude);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of a point, appending it if it is not in the table.
+	 * @requires gp != null
+	 * @modifies this
+	 * @effects as intern(gp.getLatitude(), gp.getLongitude())
+	 * @return the smallest i such that this.points[i] equals gp
+	 **/
+	public int intern(GeoPoint gp) {
+		return intern(gp.getLatitude(), gp.getLongitude());
+	}
+
+	/**
+	 * Returns the index of a point.
+	 * @return the smallest i such that this.points[i] equals
+	 *         GeoPoint(latitude, longitude), or -1 if there is none
+	 **/
+	public int indexOf(int latitude, int longitude) {
+		return indices().get(pack(latitude, longitude));
+	}
+
+	/**
+	 * Returns the index of a point.
+	 * @requires gp != null
+	 * @return indexOf(gp.getLatitude(), gp.getLongitude())
+	 **/
+	public int indexOf(GeoPoint gp) {
+		return indexOf(gp.getLatitude(), gp.getLongitude());
+	}
+
+	/**
+	 * Returns the number of points.
+	 * @return the length of this.points
+	 **/
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the latitude of a point.
+	 * @requires 0 <= index < size()
+	 * @return the latitude of this.points[index], in millionths of degrees
+	 **/
+	public int latitude(int index) {
+		return unpackLatitude(packed[check(index)]);
+	}
+
+	/**
+	 * Returns the longitude of a point.
+	 * @requires 0 <= index < size()
+	 * @return the longitude of this.points[index], in millionths of degrees
+	 **/
+	public int longitude(int index) {
+		return unpackLongitude(packed[check(index)]);
+	}
+
+	/**
+	 * Returns a point as a GeoPoint.
+	 * @requires 0 <= index < size()
+	 * @return a new GeoPoint equal to this.points[index]
+	 **/
+	public GeoPoint get(int index) {
+		long point = packed[check(index)];
+		return new GeoPoint(unpackLatitude(point), unpackLongitude(point));
+	}
+
+	/**
+	 * Computes the distance between two points.
+	 * @requires 0 <= i, j < size()
+	 * @return this.points[i].distanceTo(this.points[j])
+	 **/
+	public double distance(int i, int j) {
+		long p = packed[check(i)], q = packed[check(j)];
+		return GeoPoint.distance(unpackLatitude(p), unpackLongitude(p),
+				unpackLatitude(q), unpackLongitude(q));
+	}
+
+	/**
+	 * Returns a new cursor over this table.
+	 * @return a new Cursor that views no point until moved
+	 **/
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Releases the room kept for points not yet added.
+	 * @modifies this
+	 * @effects this.points is unchanged
+	 **/
+	public void trimToSize() {
+		if (packed.length > Math.max(1, size))
+			packed = Arrays.copyOf(packed, Math.max(1, size));
+	}
+
+	private LongIntHashMap indices() {
+		LongIntHashMap map = indices;
+		if (map == null) {
+			synchronized (this) {	// so concurrent readers build it once
+				map = indices;
+				if (map == null) {
+					map = new LongIntHashMap(size);
+					for (int i = 0; i < size; ++i)
+						map.putIfAbsent(packed[i], i);
+					indices = map;
+				}
+			}
+		}
+		return map;
+	}
+
+	private int check(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(index + " of " + size);
+		return index;
+	}
+}
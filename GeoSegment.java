@@ -27,7 +27,13 @@ package homework1;
  * differentiate between two GeoSegment objects with identical
  * GeoPoint endpoints. Equality between GeoSegment objects requires
  * that the names be equal String objects and the end points be equal
- * GeoPoint objects.
+ * GeoPoint objects. Segments with different metrics are not equal either,
+ * since their lengths and headings differ.
+ * </p>
+ * <p>
+ * Names are interned in <tt>StreetNames.global()</tt>: every GeoSegment
+ * with a given name shares one String, and names are compared by their ids
+ * in that dictionary.
  * </p>
  *
  * <b>The following fields are used in the specification:</b>
@@ -35,14 +41,19 @@ package homework1;
  *   name : String       // name of the geographic feature identified
  *   p1 : GeoPoint       // first endpoint of the segment
  *   p2 : GeoPoint       // second endpoint of the segment
+ *   metric : GeoMetric  // how length and heading are computed
  *   length : real       // straight-line distance between p1 and p2, in kilometers
  *   heading : angle     // compass heading from p1 to p2, in degrees
  * </pre>
  **/
 public class GeoSegment  {
-	private final String name;
+	private final String name;	// the global dictionary's String for the name
+	private final int name_id;	// the name's id in StreetNames.global()
 	private final GeoPoint p1,p2;
+	private final GeoMetric metric;
 	private final double length, heading;
+	private final long length_mm;	// length, rounded up to a millimeter
+	private int hash;	// cached hashCode(), 0 until first computed
 
   	// TODO Write abstraction function and representation invariant
 	// Abs. Function for every GroSegment gs:
@@ -51,31 +62,81 @@ public class GeoSegment  {
 
 	// Rep. Invariant for every GeoSegment gs:
 	// gs.name != null && gs.name is not empty
+	// gs.name == StreetNames.global().name(gs.name_id)
 	// gs.p1 != null && gs.p2 != null
-	// gs.length >= 0
+	// gs.metric != null
+	// gs.length >= 0 && gs.length_mm = Lengths.toMillimeters(gs.length)
+
+	private static final Validation.Level CHECK_LEVEL = Validation.levelFor(GeoSegment.class);
+	private static final Validation.Counter CHECK_COUNTER = Validation.counterFor(GeoSegment.class);
 
 	/**
-	 * Checks if representation invariant holds for every GeoSegment gs
+	 * Checks if representation invariant holds for every GeoSegment gs, on
+	 * the accesses selected by the Validation level of this class
 	 * @throws AssertionError if representation invariant is violated
 	 * */
 	private void checkRep(){
-		assert (name != null && !name.isEmpty()) : "invalid segment name";
-		assert (p1 != null && p2 != null) : "invalid geo points";
-		assert (length >= 0) : "invalid length";
+		if(Validation.onAccess(CHECK_LEVEL))
+			verifyRep();
+	}
+
+	/**
+	 * Checks if representation invariant holds for a new GeoSegment, unless
+	 * validation of this class is off
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void checkNewRep(){
+		if(Validation.onConstruction(CHECK_LEVEL))
+			verifyRep();
+	}
+
+	private void verifyRep(){
+		long start = Validation.start();
+		Validation.check(name != null && !name.isEmpty(), "invalid segment name");
+		Validation.check(name == StreetNames.global().name(name_id), "segment name not interned");
+		Validation.check(p1 != null && p2 != null, "invalid geo points");
+		Validation.check(metric != null, "invalid metric");
+		Validation.check(length >= 0, "invalid length");
+		Validation.finish(CHECK_COUNTER, start);
 	}
 
   	/**
      * Constructs a new GeoSegment with the specified name and endpoints.
      * @requires name != null && p1 != null && p2 != null
-     * @effects constructs a new GeoSegment with the specified name and endpoints.
+     * @effects constructs a new GeoSegment with the specified name and
+     *          endpoints, and metric = GeoMetric.TECHNION.
      **/
   	public GeoSegment(String name, GeoPoint p1, GeoPoint p2) {
-		this.name = name;
-		this.p1 = new GeoPoint(p1);
-		this.p2 = new GeoPoint(p2);
-		length = p1.distanceTo(p2);
-		heading = p1.headingTo(p2);
-		checkRep();
+		this(name, p1, p2, GeoMetric.TECHNION);
+  	}
+
+  	/**
+     * Constructs a new GeoSegment with the specified name, endpoints and
+     * metric.
+     * @requires name != null && p1 != null && p2 != null && metric != null
+     * @effects constructs a new GeoSegment with the specified name,
+     *          endpoints and metric.
+     **/
+  	public GeoSegment(String name, GeoPoint p1, GeoPoint p2, GeoMetric metric) {
+		this(StreetNames.global().intern(name), p1, p2, metric);
+  	}
+
+  	/**
+     * Constructs a new GeoSegment with the name of the specified id in the
+     * global dictionary.
+     * @requires 0 <= name_id < StreetNames.global().size()
+     *           && p1 != null && p2 != null && metric != null
+     **/
+  	private GeoSegment(int name_id, GeoPoint p1, GeoPoint p2, GeoMetric metric) {
+		this.name_id = name_id;
+		this.name = StreetNames.global().name(name_id);
+		this.p1 = p1;	// GeoPoints are immutable, so they are shared
+		this.p2 = p2;
+		this.metric = metric;
+		length = metric.distance(p1, p2);
+		length_mm = Lengths.toMillimeters(length);
+		heading = metric.heading(p1, p2);
+		checkNewRep();
   	}
 
 	/**
@@ -83,22 +144,25 @@ public class GeoSegment  {
 	 * @requires gs != null
 	 * @returns a new copied geo segment from gs **/
 	public GeoSegment(GeoSegment gs){
-		name = gs.getName();
-		p1 = gs.getP1();
-		p2 = gs.getP2();
+		name = gs.name;
+		name_id = gs.name_id;
+		p1 = gs.p1;
+		p2 = gs.p2;
+		metric = gs.metric;
 		length = gs.length;
+		length_mm = gs.length_mm;
 		heading = gs.heading;
-		checkRep();
+		checkNewRep();
 	}
 
   	/**
      * Returns a new GeoSegment like this one, but with its endpoints reversed.
      * @return a new GeoSegment gs such that gs.name = this.name
-     *         && gs.p1 = this.p2 && gs.p2 = this.p1
+     *         && gs.p1 = this.p2 && gs.p2 = this.p1 && gs.metric = this.metric
      **/
   	public GeoSegment reverse() {
   		checkRep();
-		return new GeoSegment(this.name, this.p2, this.p1);
+		return new GeoSegment(this.name_id, this.p2, this.p1, this.metric);
   	}
 
 
@@ -108,7 +172,18 @@ public class GeoSegment  {
      */
   	public String getName() {
   		checkRep();
-		return new String(this.name);
+		return this.name;
+  	}
+
+
+  	/**
+  	 * Returns the id of the name of this GeoSegment.
+     * @return the id of this.name in StreetNames.global(); two GeoSegments
+     *         have equal names if and only if they have equal name ids.
+     */
+  	public int getNameId() {
+  		checkRep();
+		return name_id;
   	}
 
 
@@ -118,7 +193,7 @@ public class GeoSegment  {
      */
   	public GeoPoint getP1() {
   		checkRep();
-		return new GeoPoint(p1);
+		return p1;
   	}
 
 
@@ -128,14 +203,13 @@ public class GeoSegment  {
      */
   	public GeoPoint getP2() {
   		checkRep();
-		return new GeoPoint(p2);
+		return p2;
   	}
 
 
   	/**
   	 * Returns the length of the segment.
-     * @return the length of the segment, using the flat-surface, near the
-     *         Technion approximation.
+     * @return the length of the segment, computed by this.metric.
      */
   	public double getLength() {
   		checkRep();
@@ -143,11 +217,21 @@ public class GeoSegment  {
   	}
 
 
+  	/**
+  	 * Returns the length of the segment in whole millimeters.
+     * @return Lengths.toMillimeters(this.length)
+     */
+  	public long getLengthMillimeters() {
+  		checkRep();
+		return length_mm;
+  	}
+
+
   	/**
   	 * Returns the compass heading from p1 to p2.
      * @requires this.length != 0
-     * @return the compass heading from p1 to p2, in degrees, using the
-     *         flat-surface, near the Technion approximation.
+     * @return the compass heading from p1 to p2, in degrees, computed by
+     *         this.metric.
      **/
   	public double getHeading() {
   		checkRep();
@@ -155,16 +239,33 @@ public class GeoSegment  {
   	}
 
 
+  	/**
+  	 * Returns the metric the length and heading were computed by.
+     * @return this.metric
+     **/
+  	public GeoMetric getMetric() {
+  		checkRep();
+		return metric;
+  	}
+
+
   	/**
      * Compares the specified Object with this GeoSegment for equality.
      * @return gs != null && (gs instanceof GeoSegment)
      *         && gs.name = this.name && gs.p1 = this.p1 && gs.p2 = this.p2
+     *         && gs.metric = this.metric
    	 **/
   	public boolean equals(Object gs) {
+		if(gs == this)
+			return true;
 		if((gs == null) || !(gs instanceof GeoSegment))
 			return false;
 		checkRep();
-		return (name.equals(((GeoSegment) gs).getName()) && p1.equals(((GeoSegment) gs).p1) && p2.equals(((GeoSegment) gs).p2));
+		GeoSegment other = (GeoSegment) gs;
+		if(hash != 0 && other.hash != 0 && hash != other.hash)
+			return false;
+		return (name_id == other.name_id && metric == other.metric
+				&& p1.equals(other.p1) && p2.equals(other.p2));
   	}
 
 
@@ -173,10 +274,15 @@ public class GeoSegment  {
      * @return a hash code value for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it 
-    	// for improved performance. 
-
-    	return 1;
+  		// Computed on first use and cached, as String does. The race between
+  		// threads computing it is benign: they all store the same value.
+  		int h = hash;
+  		if(h == 0){
+  			h = 31 * (31 * name.hashCode() + p1.hashCode()) + p2.hashCode();
+  			h = 31 * h + metric.ordinal();
+  			hash = h;
+  		}
+  		return h;
   	}
 
 
@@ -64,6 +64,8 @@ public class GeoSegmentTest {
 			!gsEast2.equals(gsWest2));
 		show("Same name, different points are not equal.",
 			!gsEast.equals(gsEast2));
+		show("Same name and points, different metric are not equal.",
+			!gsEast.equals(new GeoSegment("East", gpZivSquare, gpEast, GeoMetric.SPHERICAL)));
 			
 		GeoPoint gpZivSquare2 = new GeoPoint(32783098,35014528);
 		GeoPoint gpNorth2 = new GeoPoint(32792115,35014528);
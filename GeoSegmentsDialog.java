@@ -54,11 +54,11 @@ public class GeoSegmentsDialog extends JDialog {
 			public void actionPerformed(ActionEvent e) {
 				//Pressing add will add the selected (if a valid selection) segment to the RouteFormatter list
 				GeoSegment gs = lstSegments.getSelectedValue();
-				Route route = parent.getRoute();
-				if(route == null) {
+				GeoPoint end = parent.getRouteEnd();
+				if(end == null) {
 					parent.addSegment(gs);
 				}else{
-					if(!route.getEnd().equals(gs.getP1())){
+					if(!end.equals(gs.getP1())){
 						dispose();
 						return;
 					}
@@ -0,0 +1,144 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * An IndexedMinHeap is a binary min-heap of int items in [0, capacity),
+ * each with a double key, that supports lowering the key of an item already
+ * in the heap. It is kept in primitive arrays and allocates nothing after
+ * construction. IndexedMinHeaps are mutable and are not thread-safe.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   entries : set of (int, double)   // the items in the heap and their keys
+ * </pre>
+ **/
+final class IndexedMinHeap {
+
+	private final int[] heap;			// items, in heap order
+	private final double[] keys;		// keys[i] is the key of heap[i]
+	private final int[] positions;		// index of each item in heap, or -1
+	private int size;
+
+	// Abs. Function for every IndexedMinHeap h:
+	// h.entries = { (h.heap[i], h.keys[i]) | 0 <= i < h.size }
+
+	// Rep. Invariant for every IndexedMinHeap h:
+	// 0 <= h.size <= h.heap.length == h.keys.length == h.positions.length &&
+	// for all 0 < i < h.size: h.keys[(i-1)/2] <= h.keys[i] &&
+	// for all 0 <= i < h.size: h.positions[h.heap[i]] == i &&
+	// every other entry of h.positions is -1
+
+	/**
+	 * Constructs an empty heap for the items [0, capacity).
+	 * @requires capacity >= 0
+	 * @effects constructs a new IndexedMinHeap h such that h.entries = {}
+	 **/
+	IndexedMinHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new double[capacity];
+		positions = new int[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Returns whether the heap is empty.
+	 * @return this.entries is empty
+	 **/
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns whether an item is in the heap.
+	 * @requires 0 <= item < capacity
+	 * @return some (item, k) is in this.entries
+	 **/
+	boolean contains(int item) {
+		return positions[item] >= 0;
+	}
+
+	/**
+	 * Returns the smallest key in the heap.
+	 * @requires !isEmpty()
+	 * @return the smallest k such that some (i, k) is in this.entries
+	 **/
+	double minKey() {
+		return keys[0];
+	}
+
+	/**
+	 * Adds an item, or lowers its key if it is already in the heap with a
+	 * larger key.
+	 * @requires 0 <= item < capacity
+	 * @modifies this
+	 * @effects if (item, k) is in this.entries, replaces it by
+	 *          (item, min(k, key)); otherwise adds (item, key)
+	 **/
+	void insertOrDecrease(int item, double key) {
+		int i = positions[item];
+		if (i < 0) {
+			i = size++;
+		} else if (keys[i] <= key) {
+			return;
+		}
+		siftUp(i, item, key);
+	}
+
+	/**
+	 * Removes the item with the smallest key.
+	 * @requires !isEmpty()
+	 * @modifies this
+	 * @effects removes (i, k) from this.entries where k is the smallest key
+	 * @return the removed item i
+	 **/
+	int poll() {
+		int top = heap[0];
+		positions[top] = -1;
+		if (--size > 0)
+			siftDown(0, heap[size], keys[size]);
+		return top;
+	}
+
+	/**
+	 * Removes all the items. Takes O(number of items in the heap).
+	 * @modifies this
+	 * @effects this.entries = {}
+	 **/
+	void clear() {
+		for (int i = 0; i < size; ++i)
+			positions[heap[i]] = -1;
+		size = 0;
+	}
+
+	private void siftUp(int i, int item, double key) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[parent] <= key)
+				break;
+			place(i, heap[parent], keys[parent]);
+			i = parent;
+		}
+		place(i, item, key);
+	}
+
+	private void siftDown(int i, int item, double key) {
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && keys[child + 1] < keys[child])
+				++child;
+			if (key <= keys[child])
+				break;
+			place(i, heap[child], keys[child]);
+			i = child;
+		}
+		place(i, item, key);
+	}
+
+	private void place(int i, int item, double key) {
+		heap[i] = item;
+		keys[i] = key;
+		positions[item] = i;
+	}
+}
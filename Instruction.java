@@ -0,0 +1,169 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An Instruction is one step of the directions of a Route, in structured
+ * form: the turn onto a geographic feature, the feature's name, its length
+ * and the heading it starts in. Instructions are immutable.
+ * <p>
+ * The instructions of a route carry everything the text formatters write,
+ * so a line of directions is one rendering of an Instruction, by
+ * <tt>RouteFormatter.computeDirections(Iterable, Appendable)</tt>. Clients that
+ * need the parts of a line read them here rather than parsing the text,
+ * and InstructionCodec sends them in a few bytes each.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   turn : Turn        // the turn onto the feature
+ *   nameId : int       // the id of the feature's name in StreetNames.global()
+ *   length : integer   // the length of the feature, in whole millimeters
+ *   heading : angle    // the heading the feature starts in, in degrees
+ * </pre>
+ **/
+public final class Instruction {
+
+	private final Turn turn;
+	private final int name_id;
+	private final long length_mm;
+	private final double heading;
+
+	// Abs. Function for every Instruction in:
+	// in.turn = turn, in.nameId = name_id, in.length = length_mm,
+	// in.heading = heading
+
+	// Rep. Invariant for every Instruction in:
+	// in.turn != null && 0 <= in.name_id < StreetNames.global().size() &&
+	// in.length_mm >= 0 && 0 <= in.heading < 360
+
+	/**
+	 * Constructs an Instruction.
+	 * @requires turn != null && 0 <= nameId < StreetNames.global().size() &&
+	 *           lengthMillimeters >= 0 && 0 <= heading < 360
+	 * @effects constructs a new Instruction with the specified turn, name
+	 *          id, length in millimeters and heading
+	 **/
+	public Instruction(Turn turn, int nameId, long lengthMillimeters, double heading) {
+		this.turn = turn;
+		this.name_id = nameId;
+		this.length_mm = lengthMillimeters;
+		this.heading = heading;
+	}
+
+	/**
+	 * Returns the instruction for traversing a feature.
+	 * @requires geoFeature != null && 0 <= origHeading < 360
+	 * @return the Instruction in with in.turn = Turn.of(origHeading,
+	 *         geoFeature.startHeading), in.nameId = geoFeature.getNameId(),
+	 *         in.length = geoFeature.getLengthMillimeters() and in.heading
+	 *         = geoFeature.startHeading
+	 **/
+	public static Instruction of(GeoFeature geoFeature, double origHeading) {
+		double start = geoFeature.getStartHeading();
+		return new Instruction(Turn.of(origHeading, start), geoFeature.getNameId(),
+				geoFeature.getLengthMillimeters(), start);
+	}
+
+	/**
+	 * Returns the instructions for following a route.
+	 * @requires route != null && 0 <= heading < 360
+	 * @return an unmodifiable list of one Instruction per feature of
+	 *         route, in order, each turning from the end heading of the
+	 *         feature before it, and the first from heading
+	 **/
+	public static List<Instruction> of(Route route, double heading) {
+		List<Instruction> instructions = new ArrayList<>(route.geoFeatureList().size());
+		Iterator<GeoFeature> it = route.getGeoFeatures();
+		while (it.hasNext()) {
+			GeoFeature gf = it.next();
+			instructions.add(of(gf, heading));
+			heading = gf.getEndHeading();
+		}
+		return Collections.unmodifiableList(instructions);
+	}
+
+	/**
+	 * Returns the turn onto the feature.
+	 * @return this.turn
+	 **/
+	public Turn getTurn() {
+		return turn;
+	}
+
+	/**
+	 * Returns the id of the name of the feature.
+	 * @return this.nameId
+	 **/
+	public int getNameId() {
+		return name_id;
+	}
+
+	/**
+	 * Returns the name of the feature.
+	 * @return StreetNames.global().name(this.nameId)
+	 **/
+	public String getName() {
+		return StreetNames.global().name(name_id);
+	}
+
+	/**
+	 * Returns the length of the feature in whole millimeters.
+	 * @return this.length
+	 **/
+	public long getLengthMillimeters() {
+		return length_mm;
+	}
+
+	/**
+	 * Returns the length of the feature.
+	 * @return this.length, in kilometers
+	 **/
+	public double getLength() {
+		return Lengths.toKilometers(length_mm);
+	}
+
+	/**
+	 * Returns the heading the feature starts in.
+	 * @return this.heading
+	 **/
+	public double getHeading() {
+		return heading;
+	}
+
+	/**
+	 * Compares the specified Object with this Instruction for equality.
+	 * @return o != null && (o instanceof Instruction) && o.turn = this.turn
+	 *         && o.nameId = this.nameId && o.length = this.length &&
+	 *         o.heading = this.heading
+	 **/
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+		if (!(o instanceof Instruction))
+			return false;
+		Instruction other = (Instruction) o;
+		return turn == other.turn && name_id == other.name_id && length_mm == other.length_mm
+				&& Double.compare(heading, other.heading) == 0;
+	}
+
+	/**
+	 * Returns a hash code value for this.
+	 * @return a hash code value for this.
+	 **/
+	public int hashCode() {
+		int h = 31 * turn.ordinal() + name_id;
+		h = 31 * h + Long.hashCode(length_mm);
+		return 31 * h + Double.hashCode(heading);
+	}
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 **/
+	public String toString() {
+		return "(" + turn + ",\"" + getName() + "\"," + length_mm + "mm," + heading + ")";
+	}
+}
@@ -0,0 +1,331 @@
+package homework1;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * InstructionCodec encodes sequences of Instructions in a compact binary
+ * form, and decodes them without allocating per instruction.
+ * <p>
+ * An encoded sequence is:
+ * <pre>
+ *   VERSION                       one byte
+ *   name count, then each name    varint, then varint byte length and UTF-8 bytes
+ *   instruction count             varint
+ *   per instruction:
+ *     name index * 8 + turn       varint; turn is the ordinal of the Turn
+ *     length                      varint, in millimeters
+ *     heading                     varint, in hundredths of a degree
+ * </pre>
+ * Varints are unsigned LEB128: seven bits per byte, low bits first, the
+ * high bit set on every byte but the last. Every distinct name is written
+ * once, and instructions refer to it by its index in the message, so a
+ * typical instruction takes five to eight bytes.
+ * <p>
+ * Headings are rounded to a hundredth of a degree; turns, names and
+ * lengths are exact, so decoded instructions render to the same lines of
+ * directions as the encoded ones.
+ **/
+public final class InstructionCodec {
+
+	/** The format version, the first byte of every encoded sequence. **/
+	public static final int VERSION = 1;
+
+	private static final int TURN_BITS = 3;
+	private static final Turn[] TURNS = Turn.values();
+	private static final int CENTIDEGREES = 36000;
+
+	private InstructionCodec() {
+	}
+
+	/**
+	 * Encodes a sequence of instructions.
+	 * @requires instructions != null && instructions does not contain null
+	 * @return the encoding of instructions, in order
+	 **/
+	public static byte[] encode(Iterable<Instruction> instructions) {
+		StreetNames names = new StreetNames();
+		Buffer body = new Buffer(64);
+		int count = 0;
+		for (Instruction instruction : instructions) {
+			int index = names.intern(instruction.getName());
+			body.writeVarint(((long) index << TURN_BITS) | instruction.getTurn().ordinal());
+			body.writeVarint(instruction.getLengthMillimeters());
+			body.writeVarint(Math.round(instruction.getHeading() * 100) % CENTIDEGREES);
+			++count;
+		}
+		Buffer out = new Buffer(body.size + 16 * names.size() + 16);
+		out.writeByte(VERSION);
+		out.writeVarint(names.size());
+		for (int i = 0; i < names.size(); ++i) {
+			byte[] utf8 = names.name(i).getBytes(StandardCharsets.UTF_8);
+			out.writeVarint(utf8.length);
+			out.write(utf8, 0, utf8.length);
+		}
+		out.writeVarint(count);
+		out.write(body.bytes, 0, body.size);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Encodes the instructions for following a route.
+	 * @requires route != null && 0 <= heading < 360
+	 * @return encode(Instruction.of(route, heading))
+	 **/
+	public static byte[] encode(Route route, double heading) {
+		return encode(Instruction.of(route, heading));
+	}
+
+	/**
+	 * A Decoder reads an encoded sequence one instruction at a time, like a
+	 * cursor: <tt>next()</tt> moves to the next instruction, and the
+	 * getters read the current one. Moving allocates nothing; the names of
+	 * a sequence are decoded once, into a table of the decoder, when the
+	 * decoder is reset to it. A name is interned in StreetNames.global()
+	 * only if its global id is asked for, by getNameId() or
+	 * toInstruction(), so decoding untrusted messages does not grow the
+	 * global table. A Decoder can be reset to any number of sequences, and
+	 * is not thread-safe.
+	 **/
+	public static final class Decoder {
+
+		private byte[] data;
+		private int position, end;
+		private int remaining;
+		private String[] names = new String[16];	// by name index
+		private int[] global_ids = new int[16];		// of each name, or -1 if not interned yet
+		private int name_count;
+		private Turn turn;
+		private int name_index;
+		private long length_mm;
+		private int heading;
+
+		/**
+		 * Constructs a decoder positioned before the first instruction of
+		 * an encoded sequence.
+		 * @requires data != null
+		 * @throws IllegalArgumentException if data does not start with a
+		 *         valid header
+		 **/
+		public Decoder(byte[] data) {
+			reset(data, 0, data.length);
+		}
+
+		/**
+		 * Positions this decoder before the first instruction of an encoded
+		 * sequence.
+		 * @requires data != null && 0 <= offset <= offset + length <= data.length
+		 * @modifies this
+		 * @effects this reads the sequence encoded in data[offset, offset+length)
+		 * @throws IllegalArgumentException if the data does not start with a
+		 *         valid header
+		 **/
+		public void reset(byte[] data, int offset, int length) {
+			this.data = data;
+			position = offset;
+			end = offset + length;
+			turn = null;
+			remaining = 0;
+			Arrays.fill(names, 0, name_count, null);	// let the previous names go
+			name_count = 0;
+			if (readByte() != VERSION)
+				throw new IllegalArgumentException("unknown instruction encoding");
+			int count = readCount();
+			// every name takes at least the byte of its length, so a count
+			// the data can not hold is rejected before anything is allocated
+			if (count > end - position)
+				throw new IllegalArgumentException("truncated instruction encoding");
+			if (count > names.length) {
+				int capacity = Math.max(count, 2 * names.length);
+				names = new String[capacity];
+				global_ids = new int[capacity];
+			}
+			name_count = count;		// no instruction is read until the names are
+			for (int i = 0; i < count; ++i) {
+				int bytes = readCount();
+				if (bytes > end - position)
+					throw new IllegalArgumentException("truncated instruction encoding");
+				names[i] = new String(data, position, bytes, StandardCharsets.UTF_8);
+				global_ids[i] = -1;
+				position += bytes;
+			}
+			remaining = readCount();
+		}
+
+		/**
+		 * Moves to the next instruction.
+		 * @modifies this
+		 * @return true if there was a next instruction, which is now the
+		 *         current one; false at the end of the sequence
+		 * @throws IllegalArgumentException if the instruction is malformed
+		 **/
+		public boolean next() {
+			if (remaining == 0) {
+				turn = null;
+				return false;
+			}
+			--remaining;
+			long key = readVarint();
+			int ordinal = (int) (key & ((1 << TURN_BITS) - 1));
+			long index = key >>> TURN_BITS;
+			if (ordinal >= TURNS.length || index >= name_count)
+				throw new IllegalArgumentException("malformed instruction");
+			turn = TURNS[ordinal];
+			name_index = (int) index;
+			length_mm = readVarint();
+			long centidegrees = readVarint();
+			if (length_mm < 0 || centidegrees >= CENTIDEGREES)
+				throw new IllegalArgumentException("malformed instruction");
+			heading = (int) centidegrees;
+			return true;
+		}
+
+		/**
+		 * Returns the number of instructions after the current one.
+		 * @return the number of times next() will still return true
+		 **/
+		public int remaining() {
+			return remaining;
+		}
+
+		/**
+		 * Returns the turn of the current instruction.
+		 * @requires the last call to next() returned true
+		 * @return the turn of the current instruction
+		 **/
+		public Turn getTurn() {
+			return turn;
+		}
+
+		/**
+		 * Returns the global name id of the current instruction, interning
+		 * the name in StreetNames.global() the first time the id of a name
+		 * of the sequence is asked for.
+		 * @requires the last call to next() returned true
+		 * @modifies StreetNames.global()
+		 * @return the id of getName() in StreetNames.global()
+		 **/
+		public int getNameId() {
+			int id = global_ids[name_index];
+			if (id < 0)
+				global_ids[name_index] = id = StreetNames.global().intern(names[name_index]);
+			return id;
+		}
+
+		/**
+		 * Returns the name of the current instruction.
+		 * @requires the last call to next() returned true
+		 * @return the name of the current instruction
+		 **/
+		public String getName() {
+			return names[name_index];
+		}
+
+		/**
+		 * Returns the length of the current instruction.
+		 * @requires the last call to next() returned true
+		 * @return the length of the current instruction, in millimeters
+		 **/
+		public long getLengthMillimeters() {
+			return length_mm;
+		}
+
+		/**
+		 * Returns the heading of the current instruction.
+		 * @requires the last call to next() returned true
+		 * @return the heading of the current instruction, in degrees,
+		 *         rounded to a hundredth of a degree
+		 **/
+		public double getHeading() {
+			return heading / 100.0;
+		}
+
+		/**
+		 * Returns the current instruction as an Instruction.
+		 * @requires the last call to next() returned true
+		 * @modifies StreetNames.global(), as getNameId()
+		 * @return a new Instruction with the turn, name id, length and
+		 *         heading of the current instruction
+		 **/
+		public Instruction toInstruction() {
+			return new Instruction(turn, getNameId(), length_mm, getHeading());
+		}
+
+		/**
+		 * Writes the line of directions of the current instruction.
+		 * @requires the last call to next() returned true &&
+		 *           formatter != null && out != null
+		 * @modifies out
+		 * @effects appends to out the line formatter writes for
+		 *          toInstruction(), without creating it or interning its
+		 *          name
+		 * @throws IOException if appending to out fails
+		 **/
+		public void appendLine(RouteFormatter formatter, Appendable out) throws IOException {
+			formatter.appendLine(turn, names[name_index], length_mm, out);
+		}
+
+		private int readByte() {
+			if (position >= end)
+				throw new IllegalArgumentException("truncated instruction encoding");
+			return data[position++] & 0xFF;
+		}
+
+		private long readVarint() {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return value;
+			}
+			throw new IllegalArgumentException("malformed varint");
+		}
+
+		private int readCount() {
+			long count = readVarint();
+			if (count < 0 || count > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("malformed count");
+			return (int) count;
+		}
+	}
+
+	/**
+	 * A growable byte array.
+	 **/
+	private static final class Buffer {
+
+		byte[] bytes;
+		int size;
+
+		Buffer(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void writeByte(int b) {
+			if (size == bytes.length)
+				bytes = Arrays.copyOf(bytes, 2 * size);
+			bytes[size++] = (byte) b;
+		}
+
+		void writeVarint(long value) {
+			while ((value & ~0x7FL) != 0) {
+				writeByte((int) (value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte((int) value);
+		}
+
+		void write(byte[] source, int offset, int length) {
+			if (size + length > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(size + length, 2 * bytes.length));
+			System.arraycopy(source, offset, bytes, size, length);
+			size += length;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+}
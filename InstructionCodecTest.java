@@ -0,0 +1,98 @@
+package homework1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class InstructionCodecTest {
+
+	private Route longRoute;			// Hankin Road to Me'ir Ya'ari, several features
+	private List<Instruction> instructions;
+
+
+	public InstructionCodecTest() {
+		longRoute = ExampleGeoSegments.longRoute();
+		instructions = Instruction.of(longRoute, 90);
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("Instruction");
+		boolean rendersMatch = true;
+		for (RouteFormatter formatter : new RouteFormatter[] { new WalkingRouteFormatter(), new DrivingRouteFormatter(),
+				ExampleGeoSegments.plainFormatter() }) {
+			StringBuilder fromModel = new StringBuilder();
+			try {
+				formatter.computeDirections(instructions, fromModel);
+			} catch (IOException e) {
+				rendersMatch = false;
+			}
+			rendersMatch &= fromModel.toString().equals(formatter.computeDirections(longRoute, 90));
+		}
+		show("Text is one rendering of the instructions, in every formatter", rendersMatch);
+
+		show("InstructionCodec");
+		boolean decodedRendersMatch = true;
+		for (RouteFormatter formatter : new RouteFormatter[] { new WalkingRouteFormatter(), new DrivingRouteFormatter() }) {
+			StringBuilder fromBytes = new StringBuilder();
+			try {
+				InstructionCodec.Decoder lines = new InstructionCodec.Decoder(InstructionCodec.encode(instructions));
+				while (lines.next())
+					lines.appendLine(formatter, fromBytes);
+			} catch (IOException e) {
+				decodedRendersMatch = false;
+			}
+			decodedRendersMatch &= fromBytes.toString().equals(formatter.computeDirections(longRoute, 90));
+		}
+		show("Decoded instructions render the same text", decodedRendersMatch);
+		InstructionCodec.Decoder decoder = new InstructionCodec.Decoder(InstructionCodec.encode(instructions));
+		boolean decodes = true;
+		for (Instruction instruction : instructions) {
+			decodes &= decoder.next() && decoder.getTurn() == instruction.getTurn()
+				&& decoder.getNameId() == instruction.getNameId()
+				&& decoder.getLengthMillimeters() == instruction.getLengthMillimeters()
+				&& Math.abs(decoder.getHeading() - instruction.getHeading()) <= 0.005;
+		}
+		show("Decoded instructions keep turn, name and length exactly", decodes && !decoder.next());
+		// one instruction, a left turn onto "Unlisted Lane", 0 mm long, heading 0
+		ByteArrayOutputStream message = new ByteArrayOutputStream();
+		message.write(InstructionCodec.VERSION);
+		message.write(1);
+		message.write(13);
+		message.write("Unlisted Lane".getBytes(StandardCharsets.UTF_8), 0, 13);
+		message.write(1);
+		message.write(Turn.LEFT.ordinal());
+		message.write(0);
+		message.write(0);
+		InstructionCodec.Decoder unlisted = new InstructionCodec.Decoder(message.toByteArray());
+		boolean decodedLocally = unlisted.next() && unlisted.getName().equals("Unlisted Lane")
+			&& unlisted.getTurn() == Turn.LEFT && StreetNames.global().lookup("Unlisted Lane") == -1;
+		show("Decoding a name does not intern it until its global id is asked for", decodedLocally
+			&& unlisted.getNameId() == StreetNames.global().lookup("Unlisted Lane"));
+		boolean rejected = false;
+		try {
+			// a name count of 2^31 - 1 in a six-byte message
+			new InstructionCodec.Decoder(new byte[] { InstructionCodec.VERSION, (byte) 0xFF, (byte) 0xFF,
+				(byte) 0xFF, (byte) 0xFF, 0x07 });
+		} catch (IllegalArgumentException e) {
+			rejected = true;
+		}
+		show("A name count larger than the message is rejected", rejected);
+	}
+}
@@ -0,0 +1,286 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * An Isochrone is the part of a RoadNetwork that can be reached from a
+ * start point within a budget, given as a walking time or a driving
+ * length. Isochrones are immutable.
+ * <p>
+ * It is computed by a Dijkstra search from the start that stops at the
+ * budget. Every edge leaving a reached node is either reached entirely, or
+ * only partially, in which case it is cut at the point where the budget
+ * runs out (interpolated linearly along the segment). The boundary is the
+ * convex hull of the reached nodes and the cut points.
+ * <p>
+ * Walking budgets use the pace of WalkingRouteFormatter
+ * (MINUTES_PER_KM). Isochrones for many starts can be computed in parallel
+ * on a ForkJoinPool; the searches use the per-thread search state of the
+ * Router they are given, so they allocate little besides their results.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   start     : GeoPoint              // the point the search starts at
+ *   budget    : real                  // in kilometers
+ *   reachable : sequence of GeoSegment // edges whose end can be reached
+ *   partial   : sequence of GeoSegment // the reachable part of each edge that
+ *                                     // is reached but not entirely
+ *   boundary  : sequence of GeoPoint  // the convex hull of the reached
+ *                                     // nodes and the ends of partial,
+ *                                     // counter-clockwise
+ * </pre>
+ **/
+public class Isochrone {
+
+	private final GeoPoint start;
+	private final double budget;
+	private final List<GeoSegment> reachable;
+	private final List<GeoSegment> partial;
+	private final List<GeoPoint> boundary;
+
+	// Abs. Function for every Isochrone i:
+	// i.start, i.budget, i.reachable, i.partial and i.boundary are the
+	// fields of the same names
+
+	// Rep. Invariant for every Isochrone i:
+	// i.start != null && i.budget >= 0 && i.reachable, i.partial and
+	// i.boundary are unmodifiable and do not contain null
+
+	private Isochrone(GeoPoint start, double budget, List<GeoSegment> reachable,
+					  List<GeoSegment> partial, List<GeoPoint> boundary) {
+		this.start = start;
+		this.budget = budget;
+		this.reachable = reachable;
+		this.partial = partial;
+		this.boundary = boundary;
+	}
+
+	/**
+	 * Computes the part of a network that can be walked within a time.
+	 * @requires router != null && start != null && minutes >= 0
+	 * @return driving(router, start, minutes / WalkingRouteFormatter.MINUTES_PER_KM)
+	 **/
+	public static Isochrone walking(Router router, GeoPoint start, double minutes) {
+		return driving(router, start, minutes / WalkingRouteFormatter.MINUTES_PER_KM);
+	}
+
+	/**
+	 * Computes the part of a network that can be driven within a length.
+	 * @requires router != null && start != null && km >= 0
+	 * @return a new Isochrone i of router's network with i.start = start
+	 *         and i.budget = km, or null if start is not a node of the
+	 *         network
+	 **/
+	public static Isochrone driving(Router router, GeoPoint start, double km) {
+		RoadNetwork network = router.getNetwork();
+		int source = network.nodeOf(start);
+		if (source < 0)
+			return null;
+		return search(network, start, source, km, router.state());
+	}
+
+	/**
+	 * Computes walking isochrones for many starts in parallel.
+	 * @requires router != null && starts != null && starts does not
+	 *           contain null && minutes >= 0 && pool != null
+	 * @return an array a with a[i] = walking(router, starts[i], minutes)
+	 **/
+	public static Isochrone[] walking(Router router, GeoPoint[] starts, double minutes, ForkJoinPool pool) {
+		return driving(router, starts, minutes / WalkingRouteFormatter.MINUTES_PER_KM, pool);
+	}
+
+	/**
+	 * Computes driving isochrones for many starts in parallel.
+	 * @requires router != null && starts != null && starts does not
+	 *           contain null && km >= 0 && pool != null
+	 * @return an array a with a[i] = driving(router, starts[i], km)
+	 **/
+	public static Isochrone[] driving(Router router, GeoPoint[] starts, double km, ForkJoinPool pool) {
+		Isochrone[] result = new Isochrone[starts.length];
+		pool.submit(() -> IntStream.range(0, starts.length).parallel()
+				.forEach(i -> result[i] = driving(router, starts[i], km))).join();
+		return result;
+	}
+
+	/**
+	 * Runs Dijkstra from source until the budget runs out and collects the
+	 * result.
+	 * @modifies state
+	 **/
+	private static Isochrone search(RoadNetwork network, GeoPoint start, int source, double budget,
+									Router.SearchState state) {
+		state.reset();
+		IndexedMinHeap heap = state.heap;
+		state.set(source, 0, -1);
+		heap.insertOrDecrease(source, 0);
+		double budget_mm = budget * Lengths.MILLIMETERS_PER_KILOMETER;
+		int[] settled = new int[64];
+		int count = 0;
+		while (!heap.isEmpty() && heap.minKey() <= budget_mm) {
+			int node = heap.poll();
+			if (count == settled.length)
+				settled = Arrays.copyOf(settled, count * 2);
+			settled[count++] = node;
+			double distance = state.distance(node);
+			for (int e = network.firstEdge(node), end = network.endEdge(node); e < end; ++e) {
+				int next = network.edgeTarget(e);
+				double candidate = distance + network.edgeMillimeters(e);
+				if (candidate < state.distance(next)) {
+					state.set(next, candidate, e);
+					heap.insertOrDecrease(next, candidate);
+				}
+			}
+		}
+
+		List<GeoSegment> reachable = new ArrayList<>();
+		List<GeoSegment> partial = new ArrayList<>();
+		// hull candidates, as (latitude, longitude) pairs
+		int[] points = new int[2 * count + 16];
+		int point_count = 0;
+		for (int i = 0; i < count; ++i) {
+			int node = settled[i];
+			points = add(points, point_count++, network.nodeLatitude(node), network.nodeLongitude(node));
+			double left = budget_mm - state.distance(node);
+			for (int e = network.firstEdge(node), end = network.endEdge(node); e < end; ++e) {
+				int length = network.edgeMillimeters(e);
+				if (length <= left) {
+					reachable.add(network.edgeSegment(node, e));
+				} else {
+					GeoSegment gs = network.edgeSegment(node, e);
+					GeoPoint cut = interpolate(gs.getP1(), gs.getP2(), left / length);
+					partial.add(new GeoSegment(gs.getName(), gs.getP1(), cut, gs.getMetric()));
+					points = add(points, point_count++, cut.getLatitude(), cut.getLongitude());
+				}
+			}
+		}
+		return new Isochrone(start, budget, Collections.unmodifiableList(reachable),
+				Collections.unmodifiableList(partial), convexHull(points, point_count));
+	}
+
+	private static int[] add(int[] points, int index, int latitude, int longitude) {
+		if (2 * index + 2 > points.length)
+			points = Arrays.copyOf(points, points.length * 2);
+		points[2 * index] = latitude;
+		points[2 * index + 1] = longitude;
+		return points;
+	}
+
+	/**
+	 * Returns the point a fraction of the way from p1 to p2.
+	 * @requires 0 <= fraction <= 1
+	 **/
+	private static GeoPoint interpolate(GeoPoint p1, GeoPoint p2, double fraction) {
+		return new GeoPoint(
+				p1.getLatitude() + (int) Math.round(fraction * ((long) p2.getLatitude() - p1.getLatitude())),
+				p1.getLongitude() + (int) Math.round(fraction * ((long) p2.getLongitude() - p1.getLongitude())));
+	}
+
+	/**
+	 * Computes the convex hull of a set of points by Andrew's monotone chain.
+	 * @requires points holds count (latitude, longitude) pairs
+	 * @return the corners of the hull, counter-clockwise with longitude as
+	 *         x and latitude as y, starting from the westernmost one; or the
+	 *         distinct points if there are fewer than three of them
+	 **/
+	private static List<GeoPoint> convexHull(int[] points, int count) {
+		long[] sorted = new long[count];
+		for (int i = 0; i < count; ++i)
+			sorted[i] = pack(points[2 * i], points[2 * i + 1]);
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < count; ++i)
+			if (distinct == 0 || sorted[i] != sorted[distinct - 1])
+				sorted[distinct++] = sorted[i];
+		long[] hull = new long[2 * distinct + 1];
+		int size = 0;
+		for (int i = 0; i < distinct; ++i) {
+			while (size >= 2 && cross(hull[size - 2], hull[size - 1], sorted[i]) <= 0)
+				--size;
+			hull[size++] = sorted[i];
+		}
+		for (int i = distinct - 2, lower = size + 1; i >= 0; --i) {
+			while (size >= lower && cross(hull[size - 2], hull[size - 1], sorted[i]) <= 0)
+				--size;
+			hull[size++] = sorted[i];
+		}
+		if (distinct > 1)
+			--size;		// the first point was added again at the end
+		GeoPoint[] corners = new GeoPoint[size];
+		for (int i = 0; i < size; ++i)
+			corners[i] = new GeoPoint(latitude(hull[i]), longitude(hull[i]));
+		return Collections.unmodifiableList(Arrays.asList(corners));
+	}
+
+	/**
+	 * Packs a point into a long that orders points by longitude, then by
+	 * latitude.
+	 **/
+	private static long pack(int latitude, int longitude) {
+		return ((long) longitude << 32) | ((latitude ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+	}
+
+	private static int latitude(long packed) {
+		return (int) packed ^ Integer.MIN_VALUE;
+	}
+
+	private static int longitude(long packed) {
+		return (int) (packed >> 32);
+	}
+
+	/**
+	 * Returns the z component of (b - a) x (c - a), with longitude as x and
+	 * latitude as y.
+	 **/
+	private static long cross(long a, long b, long c) {
+		long ax = longitude(a), ay = latitude(a), bx = longitude(b), by = latitude(b);
+		long cx = longitude(c), cy = latitude(c);
+		return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+	}
+
+	/**
+	 * Returns the start point.
+	 * @return this.start
+	 **/
+	public GeoPoint getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the budget.
+	 * @return this.budget, in kilometers
+	 **/
+	public double getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns the edges that can be traveled entirely within the budget.
+	 * @return an unmodifiable view of this.reachable
+	 **/
+	public List<GeoSegment> getReachableSegments() {
+		return reachable;
+	}
+
+	/**
+	 * Returns the parts of the edges that can be traveled only partially
+	 * within the budget. Each starts at its edge's p1 and ends where the
+	 * budget runs out.
+	 * @return an unmodifiable view of this.partial
+	 **/
+	public List<GeoSegment> getPartialSegments() {
+		return partial;
+	}
+
+	/**
+	 * Returns the boundary polygon.
+	 * @return an unmodifiable view of this.boundary
+	 **/
+	public List<GeoPoint> getBoundary() {
+		return boundary;
+	}
+}
@@ -0,0 +1,41 @@
+package homework1;
+
+/**
+ * Lengths converts between kilometers and the fixed-point lengths used by
+ * this package: whole millimeters held in a long.
+ * <p>
+ * GeoFeatures, Routes and the routing classes add up lengths in
+ * millimeters. Integer sums are exact, so a length does not depend on the
+ * order its segments were added in, and parallel sums equal sequential
+ * ones. A long holds about 9.2e12 kilometers, far more than any route.
+ * <p>
+ * A segment's length is rounded <em>up</em> to a whole millimeter. The
+ * rounded lengths of a path are then never shorter than the straight line
+ * between its ends, which keeps the straight-line distance a valid lower
+ * bound for routing.
+ **/
+public final class Lengths {
+
+	/** The number of millimeters in a kilometer. **/
+	public static final long MILLIMETERS_PER_KILOMETER = 1000000;
+
+	private Lengths() {
+	}
+
+	/**
+	 * Converts a length to millimeters.
+	 * @requires km >= 0 && km is finite
+	 * @return km in millimeters, rounded up to a whole millimeter
+	 **/
+	public static long toMillimeters(double km) {
+		return (long) Math.ceil(km * MILLIMETERS_PER_KILOMETER);
+	}
+
+	/**
+	 * Converts a length in millimeters to kilometers.
+	 * @return millimeters / MILLIMETERS_PER_KILOMETER, as the nearest double
+	 **/
+	public static double toKilometers(long millimeters) {
+		return (double) millimeters / MILLIMETERS_PER_KILOMETER;
+	}
+}
@@ -0,0 +1,111 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A LongIntHashMap maps long keys to non-negative int values without boxing
+ * either. It uses open addressing with linear probing over two parallel
+ * arrays. LongIntHashMaps are mutable and are not thread-safe; once filled
+ * they may be read concurrently.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   mapping : set of (long, int)   // the key-value pairs of this map
+ * </pre>
+ **/
+final class LongIntHashMap {
+
+	/** Value returned by get() for a key that is not in the map. **/
+	static final int NO_VALUE = -1;
+
+	private long[] keys;
+	private int[] values;	// NO_VALUE marks a free slot
+	private int size;
+	private int mask;
+
+	// Abs. Function for every LongIntHashMap m:
+	// m.mapping = { (m.keys[i], m.values[i]) | m.values[i] != NO_VALUE }
+
+	// Rep. Invariant for every LongIntHashMap m:
+	// m.keys.length == m.values.length == m.mask + 1 is a power of two &&
+	// m.size = number of i such that m.values[i] != NO_VALUE &&
+	// m.size < m.keys.length / 2 &&
+	// every key is stored at the first free slot of its probe sequence
+
+	/**
+	 * Constructs an empty map sized for expectedSize keys.
+	 * @requires expectedSize >= 0
+	 * @effects constructs a new LongIntHashMap m such that m.mapping = {}
+	 **/
+	LongIntHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, NO_VALUE);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the value of a key.
+	 * @return v if (key, v) is in this.mapping, NO_VALUE otherwise
+	 **/
+	int get(long key) {
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			int v = values[i];
+			if (v == NO_VALUE || keys[i] == key)
+				return v;
+		}
+	}
+
+	/**
+	 * Returns the value of a key, adding the key with a given value if it is
+	 * not in the map yet.
+	 * @requires value >= 0
+	 * @modifies this
+	 * @effects if key has no value in this.mapping, adds (key, value) to it
+	 * @return the value of key in this.mapping after the call
+	 **/
+	int putIfAbsent(long key, int value) {
+		int i = slot(key);
+		for (; values[i] != NO_VALUE; i = (i + 1) & mask) {
+			if (keys[i] == key)
+				return values[i];
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size * 2 >= keys.length)
+			grow();
+		return value;
+	}
+
+	/**
+	 * Returns the number of keys in the map.
+	 * @return the size of this.mapping
+	 **/
+	int size() {
+		return size;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void grow() {
+		long[] old_keys = keys;
+		int[] old_values = values;
+		keys = new long[old_keys.length * 2];
+		values = new int[old_values.length * 2];
+		Arrays.fill(values, NO_VALUE);
+		mask = keys.length - 1;
+		for (int j = 0; j < old_keys.length; ++j) {
+			if (old_values[j] == NO_VALUE)
+				continue;
+			int i = slot(old_keys[j]);
+			while (values[i] != NO_VALUE)
+				i = (i + 1) & mask;
+			keys[i] = old_keys[j];
+			values[i] = old_values[j];
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A MortonOrder lists the edges of a RoadNetwork sorted by the Morton key
+ * (see SpatialKeys) of their midpoints. MortonOrders are immutable and
+ * thread-safe.
+ * <p>
+ * Edges that are close together on the map are mostly close together in
+ * the order, so visiting edges in this order is cache-friendly, and the
+ * order can be cut into contiguous runs to partition a network by area.
+ * <p>
+ * A box query becomes a few range scans over the sorted keys: the scan
+ * starts at the key of the box's south-west corner, and each time it meets
+ * a key outside the box it jumps, by binary search, to the next key that
+ * can be inside (<tt>SpatialKeys.nextKeyInBox</tt>). Since an edge is
+ * filed under its midpoint only, the box is first grown by half the
+ * extent of the largest edge, and the edges found are then tested exactly.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   network : RoadNetwork        // the network whose edges are ordered
+ *   edges   : sequence of int    // the edge ids, by Morton key of midpoint
+ * </pre>
+ **/
+public class MortonOrder {
+
+	private final RoadNetwork network;
+	private final long[] keys;
+	private final int[] edges;
+	private final int half_height, half_width;	// of the largest edge
+
+	// Abs. Function for every MortonOrder o:
+	// o.edges[i] = o.edges[i], and o.keys[i] is the Morton key of the
+	//   midpoint of that edge
+
+	// Rep. Invariant for every MortonOrder o:
+	// o.keys.length == o.edges.length == o.network.edgeCount() &&
+	// o.keys is sorted && o.edges is a permutation of [0, edgeCount()) &&
+	// every edge spans at most 2 * half_height of latitude and
+	//   2 * half_width of longitude
+
+	/**
+	 * Orders the edges of a network.
+	 * @requires network != null
+	 * @effects constructs a new MortonOrder o with o.network = network
+	 **/
+	public MortonOrder(RoadNetwork network) {
+		this.network = network;
+		int m = network.edgeCount();
+		long[] unsorted = new long[m];
+		int max_height = 0, max_width = 0;
+		for (int node = 0; node < network.nodeCount(); ++node) {
+			int lat1 = network.nodeLatitude(node), lon1 = network.nodeLongitude(node);
+			for (int e = network.firstEdge(node); e < network.endEdge(node); ++e) {
+				int target = network.edgeTarget(e);
+				int lat2 = network.nodeLatitude(target), lon2 = network.nodeLongitude(target);
+				max_height = Math.max(max_height, Math.abs(lat2 - lat1));
+				max_width = Math.max(max_width, Math.abs(lon2 - lon1));
+				unsorted[e] = SpatialKeys.mortonKey((int) (((long) lat1 + lat2) >> 1),
+						(int) (((long) lon1 + lon2) >> 1));
+			}
+		}
+		half_height = max_height / 2 + 1;
+		half_width = max_width / 2 + 1;
+		keys = new long[m];
+		edges = new int[m];
+		sort(unsorted, keys, edges);
+	}
+
+	/**
+	 * Sorts the edge ids by key with an LSD radix sort.
+	 * @modifies sorted_keys, sorted_edges
+	 * @effects sorted_keys is keys sorted, and sorted_edges[i] is the index
+	 *          in keys of sorted_keys[i]
+	 **/
+	private static void sort(long[] keys, long[] sorted_keys, int[] sorted_edges) {
+		int m = keys.length;
+		long[] key_buffer = new long[m];
+		int[] edge_buffer = new int[m];
+		long[] from_keys = keys.clone(), to_keys = key_buffer;
+		int[] from_edges = new int[m], to_edges = edge_buffer;
+		for (int e = 0; e < m; ++e)
+			from_edges[e] = e;
+		long all = 0;
+		for (long key : keys)
+			all |= key;
+		int[] counts = new int[1 << 11];
+		for (int shift = 0; shift < 64 && (all >>> shift) != 0; shift += 11) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < m; ++i)
+				++counts[(int) (from_keys[i] >>> shift) & 0x7FF];
+			for (int d = 0, sum = 0; d < counts.length; ++d) {
+				int c = counts[d];
+				counts[d] = sum;
+				sum += c;
+			}
+			for (int i = 0; i < m; ++i) {
+				int j = counts[(int) (from_keys[i] >>> shift) & 0x7FF]++;
+				to_keys[j] = from_keys[i];
+				to_edges[j] = from_edges[i];
+			}
+			long[] swap_keys = from_keys;
+			from_keys = to_keys;
+			to_keys = swap_keys;
+			int[] swap_edges = from_edges;
+			from_edges = to_edges;
+			to_edges = swap_edges;
+		}
+		System.arraycopy(from_keys, 0, sorted_keys, 0, m);
+		System.arraycopy(from_edges, 0, sorted_edges, 0, m);
+	}
+
+	/**
+	 * Returns the network whose edges are ordered.
+	 * @return this.network
+	 **/
+	public RoadNetwork getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Returns the number of edges.
+	 * @return the length of this.edges
+	 **/
+	public int size() {
+		return edges.length;
+	}
+
+	/**
+	 * Returns an edge by its position in the order.
+	 * @requires 0 <= index < size()
+	 * @return this.edges[index]
+	 **/
+	public int edgeAt(int index) {
+		return edges[index];
+	}
+
+	/**
+	 * Returns the key of the edge at a position in the order.
+	 * @requires 0 <= index < size()
+	 * @return the Morton key of the midpoint of this.edges[index]
+	 **/
+	public long keyAt(int index) {
+		return keys[index];
+	}
+
+	/**
+	 * Finds the first position whose key is at least a given key.
+	 * @return the smallest i such that keyAt(i) >= key, or size() if there
+	 *         is none
+	 **/
+	public int positionOf(long key) {
+		return lowerBound(0, keys.length, key);
+	}
+
+	/**
+	 * Finds the edges that pass through a box.
+	 * @requires edges != null
+	 * @modifies edges
+	 * @effects stores in edges the ids of the edges of this.network that
+	 *          intersect the box [minLatitude, maxLatitude] x
+	 *          [minLongitude, maxLongitude] (given in millionths of
+	 *          degrees), as many as fit, in the order of this.edges
+	 * @return the number of such edges, which may be more than edges.length
+	 **/
+	public int segmentsWithin(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude,
+							  int[] edges) {
+		if (minLatitude > maxLatitude || minLongitude > maxLongitude)
+			return 0;
+		// any edge that meets the box has its midpoint in the grown box
+		int min_lat = (int) Math.max(GeoPoint.MIN_LATITUDE, (long) minLatitude - half_height);
+		int max_lat = (int) Math.min(GeoPoint.MAX_LATITUDE, (long) maxLatitude + half_height);
+		int min_lon = (int) Math.max(GeoPoint.MIN_LONGITUDE, (long) minLongitude - half_width);
+		int max_lon = (int) Math.min(GeoPoint.MAX_LONGITUDE, (long) maxLongitude + half_width);
+		if (min_lat > max_lat || min_lon > max_lon)
+			return 0;
+		long min = SpatialKeys.mortonKey(min_lat, min_lon), max = SpatialKeys.mortonKey(max_lat, max_lon);
+		int count = 0;
+		int i = lowerBound(0, keys.length, min);
+		while (i < keys.length && keys[i] <= max) {
+			long key = keys[i];
+			if (!SpatialKeys.inBox(key, min_lat, min_lon, max_lat, max_lon)) {
+				i = lowerBound(i + 1, keys.length, SpatialKeys.nextKeyInBox(key, min, max));
+				continue;
+			}
+			int e = this.edges[i++];
+			if (intersects(e, minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+				if (count < edges.length)
+					edges[count] = e;
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns whether edge e intersects a box: their bounding boxes overlap
+	 * and the corners of the box are not all strictly on one side of the
+	 * line through e.
+	 **/
+	private boolean intersects(int e, int min_lat, int min_lon, int max_lat, int max_lon) {
+		int source = network.edgeSource(e), target = network.edgeTarget(e);
+		long y1 = network.nodeLatitude(source), x1 = network.nodeLongitude(source);
+		long y2 = network.nodeLatitude(target), x2 = network.nodeLongitude(target);
+		if (Math.max(y1, y2) < min_lat || Math.min(y1, y2) > max_lat
+				|| Math.max(x1, x2) < min_lon || Math.min(x1, x2) > max_lon)
+			return false;
+		long a = side(x1, y1, x2, y2, min_lon, min_lat), b = side(x1, y1, x2, y2, max_lon, min_lat);
+		long c = side(x1, y1, x2, y2, min_lon, max_lat), d = side(x1, y1, x2, y2, max_lon, max_lat);
+		return !((a > 0 && b > 0 && c > 0 && d > 0) || (a < 0 && b < 0 && c < 0 && d < 0));
+	}
+
+	private static long side(long x1, long y1, long x2, long y2, long x, long y) {
+		return Long.signum((x2 - x1) * (y - y1) - (y2 - y1) * (x - x1));
+	}
+
+	private int lowerBound(int from, int to, long key) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (keys[mid] < key)
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+}
@@ -0,0 +1,176 @@
+package homework1;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A PersistentList is an immutable, append-only sequence that shares its
+ * storage with the lists it was derived from. PersistentLists are immutable.
+ * <p>
+ * Every PersistentList is a view of a contiguous range of a growable
+ * backing array. The first list to append to a given backing array writes
+ * into its free tail in place, so a chain of appends costs O(1) amortized
+ * time and space per element, and all the intermediate versions share the
+ * same array. A list that appends to a backing array already claimed by
+ * another version copies its elements into a fresh array first, so older
+ * versions never observe a change. Appending the very same element that
+ * another version already claimed the next slot with shares that slot, which
+ * lets a Route and its last GeoFeature grow over the same array.
+ * <p>
+ * A PersistentList is itself an unmodifiable List, so it can be handed out
+ * as a read-only view of its elements without copying them.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   elements : sequence    // the elements of this list, in order
+ * </pre>
+ **/
+final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private static final PersistentList<Object> EMPTY =
+			new PersistentList<>(new Store(new Object[0], 0), 0, 0);
+
+	/**
+	 * Backing array shared between list versions. used is the first index no
+	 * version has claimed yet.
+	 */
+	private static final class Store {
+		private final Object[] elements;
+		private int used;
+
+		Store(Object[] elements, int used) {
+			this.elements = elements;
+			this.used = used;
+		}
+	}
+
+	private final Store store;
+	private final int offset;
+	private final int size;
+
+	// Abs. Function for every PersistentList l:
+	// l.elements = [l.store.elements[l.offset], ..., l.store.elements[l.offset+l.size-1]]
+
+	// Rep. Invariant for every PersistentList l:
+	// l.store != null && 0 <= l.offset &&
+	// 0 <= l.offset + l.size <= l.store.used <= l.store.elements.length
+	// l.store.elements[0..l.store.used-1] are never written again
+
+	private PersistentList(Store store, int offset, int size) {
+		this.store = store;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the empty list.
+	 * @return a PersistentList l such that l.elements = []
+	 **/
+	@SuppressWarnings("unchecked")
+	static <E> PersistentList<E> empty() {
+		return (PersistentList<E>) EMPTY;
+	}
+
+	/**
+	 * Returns a list holding a single element.
+	 * @requires e != null
+	 * @return a PersistentList l such that l.elements = [e]
+	 **/
+	static <E> PersistentList<E> of(E e) {
+		Object[] elements = new Object[INITIAL_CAPACITY];
+		elements[0] = e;
+		return new PersistentList<>(new Store(elements, 1), 0, 1);
+	}
+
+	/**
+	 * Returns a list over the first size entries of elements. The list takes
+	 * ownership of elements; the caller must not modify it afterwards. The
+	 * entries past size stay free for later appends.
+	 * @requires elements != null && 0 <= size <= elements.length &&
+	 * 			 elements[0..size-1] != null
+	 * @return a PersistentList l such that
+	 * 		   l.elements = [elements[0], ..., elements[size-1]]
+	 **/
+	static <E> PersistentList<E> wrap(Object[] elements, int size) {
+		return new PersistentList<>(new Store(elements, size), 0, size);
+	}
+
+	/**
+	 * Returns a view of a range of this list that shares its storage.
+	 * @requires 0 <= from <= from + length <= this.elements.length
+	 * @return a PersistentList l such that
+	 * 		   l.elements = [this.elements[from], ..., this.elements[from+length-1]]
+	 **/
+	PersistentList<E> slice(int from, int length) {
+		if (from < 0 || length < 0 || from + length > size)
+			throw new IndexOutOfBoundsException("Range: [" + from + "," + (from + length) + "), Size: " + size);
+		return new PersistentList<>(store, offset + from, length);
+	}
+
+	/**
+	 * Creates a new list that is equal to this list with e appended to its
+	 * end. This list is not modified.
+	 * @requires e != null
+	 * @return a PersistentList l such that l.elements = this.elements + [e]
+	 **/
+	PersistentList<E> append(E e) {
+		int end = offset + size;
+		synchronized (store) {
+			if (end < store.used) {
+				if (store.elements[end] == e)
+					return new PersistentList<>(store, offset, size + 1);
+			} else if (end < store.elements.length) {
+				store.elements[end] = e;
+				store.used = end + 1;
+				return new PersistentList<>(store, offset, size + 1);
+			}
+		}
+		// either this version's tail was already claimed by a sibling or the
+		// backing array is full; both cases continue in a fresh array
+		Object[] elements = new Object[Math.max(INITIAL_CAPACITY, size * 2)];
+		System.arraycopy(store.elements, offset, elements, 0, size);
+		elements[size] = e;
+		return new PersistentList<>(new Store(elements, size + 1), 0, size + 1);
+	}
+
+	/**
+	 * Returns the last element of this list.
+	 * @requires this.elements is not empty
+	 * @return the last element of this list.
+	 **/
+	E last() {
+		return get(size - 1);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return (E) store.elements[offset + index];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super E> action) {
+		Object[] elements = store.elements;
+		for (int i = offset, end = offset + size; i < end; ++i)
+			action.accept((E) elements[i]);
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return Spliterators.spliterator(store.elements, offset, offset + size,
+				Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+	}
+}
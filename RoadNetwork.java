@@ -0,0 +1,538 @@
+package homework1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A RoadNetwork is a directed graph built from a collection of GeoSegments.
+ * RoadNetworks are immutable.
+ * <p>
+ * Every distinct GeoSegment endpoint becomes a node, identified by a dense
+ * int id in [0, nodeCount()). Every GeoSegment becomes an edge from the node
+ * of its p1 to the node of its p2, identified by a dense int id in
+ * [0, edgeCount()). A street that can be traveled both ways needs both a
+ * segment and its reverse.
+ * <p>
+ * The edges are stored in compressed sparse row form: the edges leaving a
+ * node have consecutive ids, from <tt>firstEdge(node)</tt> (inclusive) to
+ * <tt>endEdge(node)</tt> (exclusive), and their targets, lengths (in
+ * whole millimeters, see Lengths), headings and street names are kept in
+ * primitive arrays. Iterating the edges leaving a node
+ * is O(degree) and allocates nothing:
+ * <pre>
+ *   for (int e = network.firstEdge(node); e &lt; network.endEdge(node); ++e)
+ *       visit(network.edgeTarget(e), network.edgeMillimeters(e));
+ * </pre>
+ * The network keeps no GeoSegment objects: <tt>edgeSegment()</tt> builds
+ * the segment of an edge when it is asked for, from the points of its
+ * nodes, its street name and the metric. Clients that only need the
+ * numbers of an edge read them through the accessors above.
+ * <p>
+ * A network is saved by <tt>write()</tt> and loaded by <tt>read()</tt>. The
+ * street names are saved once each, in a table of their own, and every
+ * edge refers to its name by an index into that table. A loaded network
+ * has the same node and edge ids as the saved one, so data derived from
+ * it, such as a saved ContractionHierarchy, can be loaded for it.
+ * <p>
+ * The street names of the edges are kept in a StreetNames table of the
+ * network, not in <tt>StreetNames.global()</tt>: a network built or loaded
+ * without a table gets one of its own, which is reclaimed with it, and
+ * networks given the same table share its Strings and ids
+ * (<tt>edgeNameId()</tt>). Only the segments <tt>edgeSegment()</tt> builds
+ * take their names into the global table.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   nodes : sequence of GeoPoint    // the distinct endpoints, by node id
+ *   edges : sequence of GeoSegment  // the segments, by edge id
+ *   metric : GeoMetric              // the metric of every edge
+ * </pre>
+ **/
+public class RoadNetwork {
+
+	private static final int MAGIC = 0x524E0001;			// "RN", format 1
+
+	private final GeoPointTable node_points;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] millimeters;
+	private final float[] headings;
+	private final int[] name_ids;			// ids in names
+	private final StreetNames names;		// holds the names of the edges
+	private final GeoMetric metric;
+
+	// Abs. Function for every RoadNetwork n:
+	// n.nodes = n.node_points.points
+	// n.edges[e] = GeoSegment(n.names.name(n.name_ids[e]), n.nodes[i],
+	//   n.nodes[n.targets[e]], n.metric) for the node i with
+	//   n.offsets[i] <= e < n.offsets[i+1]
+
+	// Rep. Invariant for every RoadNetwork n:
+	// n.node_points.size() == n.offsets.length - 1 && the elements of n.nodes are distinct &&
+	// n.metric != null && n.names != null &&
+	// n.offsets[0] == 0 && n.offsets is non-decreasing &&
+	// n.offsets[n.offsets.length-1] == n.targets.length == n.millimeters.length
+	//   == n.headings.length == n.name_ids.length &&
+	// for all e: 0 <= n.targets[e] < n.nodes.length &&
+	//   0 <= n.name_ids[e] < n.names.size() &&
+	//   n.millimeters[e] = n.edges[e].getLengthMillimeters() &&
+	//   n.headings[e] = (float) n.edges[e].heading
+
+	/**
+	 * Constructs a RoadNetwork from a collection of GeoSegments.
+	 * @requires segments != null && segments does not contain null
+	 * @effects constructs a new RoadNetwork n such that n.edges contains
+	 *          every element of segments, grouped by p1, n.nodes contains
+	 *          every distinct endpoint of segments, and n.metric is the
+	 *          metric of the segments (GeoMetric.TECHNION if there are none)
+	 * @throws IllegalArgumentException if the segments do not all have
+	 *         the same metric, or a segment is longer than
+	 *         Integer.MAX_VALUE millimeters (about 2147 km)
+	 **/
+	public RoadNetwork(Collection<GeoSegment> segments) {
+		this(segments, new StreetNames());
+	}
+
+	/**
+	 * Constructs a RoadNetwork from a collection of GeoSegments, keeping
+	 * the street names in a given table.
+	 * @requires segments != null && segments does not contain null &&
+	 *           names != null
+	 * @modifies names
+	 * @effects as RoadNetwork(segments), and adds the names of the
+	 *          segments to names
+	 * @throws IllegalArgumentException as RoadNetwork(segments)
+	 **/
+	public RoadNetwork(Collection<GeoSegment> segments, StreetNames names) {
+		this(segments.toArray(new GeoSegment[segments.size()]), new GeoPointTable(segments.size()), names);
+	}
+
+	/**
+	 * Constructs a RoadNetwork from an array of GeoSegments, with nodes
+	 * numbered by a table that may already hold some of them.
+	 * @requires input does not contain null && node_points holds distinct
+	 *           points, each an endpoint of some element of input &&
+	 *           names != null
+	 * @effects as RoadNetwork(input, names), except that the points of
+	 *          node_points keep their indices as node ids; takes ownership
+	 *          of input and node_points
+	 **/
+	private RoadNetwork(GeoSegment[] input, GeoPointTable node_points, StreetNames names) {
+		int m = input.length;
+		this.node_points = node_points;
+		this.names = names;
+		int[] sources = new int[m];
+		int[] dests = new int[m];
+		GeoMetric common = null;
+		for (int k = 0; k < m; ++k) {
+			GeoSegment gs = input[k];
+			if (common == null)
+				common = gs.getMetric();
+			else if (gs.getMetric() != common)
+				throw new IllegalArgumentException("segments of metrics " + common + " and " + gs.getMetric());
+			sources[k] = node_points.intern(gs.getP1());
+			dests[k] = node_points.intern(gs.getP2());
+		}
+		node_points.trimToSize();
+		metric = (common == null) ? GeoMetric.TECHNION : common;
+		int n = node_points.size();
+
+		// counting sort of the edges by source node
+		offsets = new int[n + 1];
+		for (int e = 0; e < m; ++e)
+			++offsets[sources[e] + 1];
+		for (int i = 0; i < n; ++i)
+			offsets[i + 1] += offsets[i];
+		int[] next = Arrays.copyOf(offsets, n);
+		targets = new int[m];
+		millimeters = new int[m];
+		headings = new float[m];
+		name_ids = new int[m];
+		for (int j = 0; j < m; ++j) {
+			int e = next[sources[j]]++;
+			targets[e] = dests[j];
+			long length = input[j].getLengthMillimeters();
+			if (length > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("segment too long: " + input[j]);
+			millimeters[e] = (int) length;
+			headings[e] = (float) input[j].getHeading();
+			name_ids[e] = names.intern(input[j].getName());
+		}
+	}
+
+	/**
+	 * Constructs a RoadNetwork from its arrays, computing the lengths and
+	 * headings of the edges.
+	 * @requires the arguments satisfy the rep invariant of the network
+	 *           they stand for, except for millimeters and headings
+	 * @effects constructs the RoadNetwork they stand for; takes ownership
+	 *          of the arguments
+	 * @throws IllegalArgumentException if an edge is longer than
+	 *         Integer.MAX_VALUE millimeters
+	 **/
+	private RoadNetwork(GeoPointTable node_points, int[] offsets, int[] targets, int[] name_ids,
+						StreetNames names, GeoMetric metric) {
+		int m = targets.length;
+		this.node_points = node_points;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.name_ids = name_ids;
+		this.names = names;
+		this.metric = metric;
+		millimeters = new int[m];
+		headings = new float[m];
+		for (int source = 0; source < nodeCount(); ++source) {
+			int latitude = node_points.latitude(source), longitude = node_points.longitude(source);
+			for (int e = offsets[source]; e < offsets[source + 1]; ++e) {
+				int target_latitude = node_points.latitude(targets[e]);
+				int target_longitude = node_points.longitude(targets[e]);
+				// as GeoSegment computes them, so edgeSegment() agrees
+				long length = Lengths.toMillimeters(metric.distance(latitude, longitude,
+						target_latitude, target_longitude));
+				if (length > Integer.MAX_VALUE)
+					throw new IllegalArgumentException("edge " + e + " too long");
+				millimeters[e] = (int) length;
+				headings[e] = (float) metric.heading(latitude, longitude, target_latitude, target_longitude);
+			}
+		}
+	}
+
+	/**
+	 * Saves this network.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects writes this network to out in a form read() accepts; out is
+	 *          flushed but not closed
+	 * @throws IOException if writing to out fails
+	 **/
+	public void write(OutputStream out) throws IOException {
+		int m = edgeCount();
+		// the table may be shared, so only the names of this network are
+		// saved, renumbered in the order of their first edge
+		StreetNames saved = new StreetNames();
+		int[] saved_ids = new int[m];
+		int[] renumbered = new int[names.size()];
+		Arrays.fill(renumbered, -1);
+		for (int e = 0; e < m; ++e) {
+			int id = name_ids[e];
+			if (renumbered[id] < 0)
+				renumbered[id] = saved.intern(names.name(id));
+			saved_ids[e] = renumbered[id];
+		}
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(metric.ordinal());
+		data.writeInt(nodeCount());
+		data.writeInt(m);
+		for (int i = 0; i < nodeCount(); ++i) {
+			data.writeInt(node_points.latitude(i));
+			data.writeInt(node_points.longitude(i));
+		}
+		saved.write(data);
+		for (int i = 0; i < nodeCount(); ++i) {
+			data.writeInt(outDegree(i));
+			for (int e = offsets[i]; e < offsets[i + 1]; ++e) {
+				data.writeInt(targets[e]);
+				data.writeInt(saved_ids[e]);
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Loads a network saved by write().
+	 * @requires in != null
+	 * @modifies in
+	 * @return a RoadNetwork with the nodes, edges and metric of the network
+	 *         written to in, and the same node and edge ids
+	 * @throws IOException if reading fails, including when in ends before
+	 *         the number of nodes or edges it declares, or if in does not
+	 *         hold a network
+	 **/
+	public static RoadNetwork read(InputStream in) throws IOException {
+		return read(in, new StreetNames());
+	}
+
+	/**
+	 * Loads a network saved by write(), keeping the street names in a
+	 * given table.
+	 * @requires in != null && names != null
+	 * @modifies in, names
+	 * @effects adds the street names of the network to names
+	 * @return as read(in)
+	 * @throws IOException as read(in)
+	 **/
+	public static RoadNetwork read(InputStream in, StreetNames names) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC)
+			throw new IOException("not a road network");
+		GeoMetric[] metrics = GeoMetric.values();
+		int ordinal = data.readInt(), n = data.readInt(), m = data.readInt();
+		if (ordinal < 0 || ordinal >= metrics.length || n < 0 || n == Integer.MAX_VALUE || m < 0)
+			throw new IOException("invalid road network header");
+		// the counts are not trusted to size arrays: nodes and edges are
+		// stored as they are read, in arrays that grow from a bounded guess
+		GeoPointTable points = new GeoPointTable(Math.min(n, 1 << 16));
+		for (int i = 0; i < n; ++i) {
+			int latitude = data.readInt(), longitude = data.readInt();
+			if (latitude < GeoPoint.MIN_LATITUDE || latitude > GeoPoint.MAX_LATITUDE
+					|| longitude < GeoPoint.MIN_LONGITUDE || longitude > GeoPoint.MAX_LONGITUDE)
+				throw new IOException("invalid node " + i);
+			if (points.intern(latitude, longitude) != i)
+				throw new IOException("duplicate node " + i);
+		}
+		points.trimToSize();
+		StreetNames saved = StreetNames.read(data);
+		int[] ids = new int[saved.size()];
+		for (int i = 0; i < ids.length; ++i)
+			ids[i] = names.intern(saved.name(i));
+		int[] offsets = new int[n + 1];
+		int capacity = (int) Math.min(m, 3L * n + 16);
+		int[] targets = new int[capacity], name_ids = new int[capacity];
+		int e = 0;
+		for (int source = 0; source < n; ++source) {
+			int degree = data.readInt();
+			if (degree < 0 || degree > m - e)
+				throw new IOException("invalid degree of node " + source);
+			for (int end = e + degree; e < end; ++e) {
+				if (e == targets.length) {
+					targets = Arrays.copyOf(targets, (int) Math.min(m, 2L * e));
+					name_ids = Arrays.copyOf(name_ids, targets.length);
+				}
+				int target = data.readInt(), name = data.readInt();
+				if (target < 0 || target >= n || name < 0 || name >= ids.length)
+					throw new IOException("invalid edge " + e);
+				targets[e] = target;
+				name_ids[e] = ids[name];
+			}
+			offsets[source + 1] = e;
+		}
+		if (e != m)
+			throw new IOException("road network ends after " + e + " of " + m + " edges");
+		if (targets.length != m) {
+			targets = Arrays.copyOf(targets, m);
+			name_ids = Arrays.copyOf(name_ids, m);
+		}
+		try {
+			return new RoadNetwork(points, offsets, targets, name_ids, names, metrics[ordinal]);
+		} catch (IllegalArgumentException ex) {
+			throw new IOException("invalid road network: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Returns a checksum of the structure of this network, used to tell
+	 * whether data derived from a network, such as a persisted
+	 * ContractionHierarchy, belongs to it. Takes O(nodeCount() + edgeCount()).
+	 * @return a value that is equal for networks with the same nodes and
+	 *         edges, in the same order, and that differs with high
+	 *         probability otherwise
+	 **/
+	public long fingerprint() {
+		long h = 31L * nodeCount() + edgeCount();
+		for (int i = 0; i < nodeCount(); ++i)
+			h = h * 0x9E3779B97F4A7C15L + GeoPointTable.pack(node_points.latitude(i), node_points.longitude(i));
+		for (int e = 0; e < edgeCount(); ++e)
+			h = h * 0x9E3779B97F4A7C15L + (((long) targets[e] << 32) | millimeters[e]);
+		return h ^ (h >>> 29);
+	}
+
+	/**
+	 * Returns the metric the lengths and headings of the edges were
+	 * computed by.
+	 * @return this.metric
+	 **/
+	public GeoMetric getMetric() {
+		return metric;
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 * @return the length of this.nodes
+	 **/
+	public int nodeCount() {
+		return node_points.size();
+	}
+
+	/**
+	 * Returns the number of edges.
+	 * @return the length of this.edges
+	 **/
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Returns the node at a point.
+	 * @requires gp != null
+	 * @return the id i such that this.nodes[i] = gp, or -1 if gp is not an
+	 *         endpoint of any edge
+	 **/
+	public int nodeOf(GeoPoint gp) {
+		return nodeOf(gp.getLatitude(), gp.getLongitude());
+	}
+
+	/**
+	 * Returns the node at a point given in millionths of degrees.
+	 * @return the id i such that this.nodes[i] = GeoPoint(latitude, longitude),
+	 *         or -1 if there is no such node
+	 **/
+	public int nodeOf(int latitude, int longitude) {
+		return node_points.indexOf(latitude, longitude);
+	}
+
+	/**
+	 * Returns the location of a node.
+	 * @requires 0 <= node < nodeCount()
+	 * @return a GeoPoint equal to this.nodes[node]
+	 **/
+	public GeoPoint pointOf(int node) {
+		return node_points.get(node);
+	}
+
+	/**
+	 * Returns the latitude of a node.
+	 * @requires 0 <= node < nodeCount()
+	 * @return the latitude of this.nodes[node], in millionths of degrees
+	 **/
+	public int nodeLatitude(int node) {
+		return node_points.latitude(node);
+	}
+
+	/**
+	 * Returns the longitude of a node.
+	 * @requires 0 <= node < nodeCount()
+	 * @return the longitude of this.nodes[node], in millionths of degrees
+	 **/
+	public int nodeLongitude(int node) {
+		return node_points.longitude(node);
+	}
+
+	/**
+	 * Returns the first edge leaving a node.
+	 * @requires 0 <= node < nodeCount()
+	 * @return the smallest id of an edge leaving node, or endEdge(node) if
+	 *         no edge leaves node
+	 **/
+	public int firstEdge(int node) {
+		return offsets[node];
+	}
+
+	/**
+	 * Returns the end of the range of edges leaving a node.
+	 * @requires 0 <= node < nodeCount()
+	 * @return one more than the largest id of an edge leaving node
+	 **/
+	public int endEdge(int node) {
+		return offsets[node + 1];
+	}
+
+	/**
+	 * Returns the number of edges leaving a node.
+	 * @requires 0 <= node < nodeCount()
+	 * @return endEdge(node) - firstEdge(node)
+	 **/
+	public int outDegree(int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * Returns the node an edge leaves. Takes O(log(nodeCount())).
+	 * @requires 0 <= edge < edgeCount()
+	 * @return the node i such that firstEdge(i) <= edge < endEdge(i)
+	 **/
+	public int edgeSource(int edge) {
+		int lo = 0, hi = offsets.length - 2;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (offsets[mid] <= edge)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the node an edge enters.
+	 * @requires 0 <= edge < edgeCount()
+	 * @return the id of the node at this.edges[edge].p2
+	 **/
+	public int edgeTarget(int edge) {
+		return targets[edge];
+	}
+
+	/**
+	 * Returns the length of an edge in whole millimeters.
+	 * @requires 0 <= edge < edgeCount()
+	 * @return this.edges[edge].getLengthMillimeters()
+	 **/
+	public int edgeMillimeters(int edge) {
+		return millimeters[edge];
+	}
+
+	/**
+	 * Returns the length of an edge.
+	 * @requires 0 <= edge < edgeCount()
+	 * @return Lengths.toKilometers(edgeMillimeters(edge))
+	 **/
+	public double edgeLength(int edge) {
+		return Lengths.toKilometers(millimeters[edge]);
+	}
+
+	/**
+	 * Returns the heading of an edge.
+	 * @requires 0 <= edge < edgeCount()
+	 * @return this.edges[edge].heading, in degrees, rounded to a float
+	 **/
+	public float edgeHeading(int edge) {
+		return headings[edge];
+	}
+
+	/**
+	 * Returns the id of the street name of an edge.
+	 * @requires 0 <= edge < edgeCount()
+	 * @return the id of this.edges[edge].name in the StreetNames table
+	 *         this network keeps its names in
+	 **/
+	public int edgeNameId(int edge) {
+		return name_ids[edge];
+	}
+
+	/**
+	 * Returns the street name of an edge.
+	 * @requires 0 <= edge < edgeCount()
+	 * @return this.edges[edge].name
+	 **/
+	public String edgeName(int edge) {
+		return names.name(name_ids[edge]);
+	}
+
+	/**
+	 * Returns the GeoSegment of an edge, built when it is asked for. Takes
+	 * O(log(nodeCount())) to find the node the edge leaves.
+	 * @requires 0 <= edge < edgeCount()
+	 * @return a new GeoSegment equal to this.edges[edge]
+	 **/
+	public GeoSegment edgeSegment(int edge) {
+		return edgeSegment(edgeSource(edge), edge);
+	}
+
+	/**
+	 * Returns the GeoSegment of an edge leaving a known node, built when it
+	 * is asked for, for searches that know where their edges start.
+	 * @requires 0 <= edge < edgeCount() && source = edgeSource(edge)
+	 * @return a new GeoSegment equal to this.edges[edge]
+	 **/
+	GeoSegment edgeSegment(int source, int edge) {
+		return new GeoSegment(names.name(name_ids[edge]), node_points.get(source),
+				node_points.get(targets[edge]), metric);
+	}
+}
@@ -0,0 +1,322 @@
+package homework1;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class RoadNetworkTest {
+
+	private List<GeoSegment> twoWaySegments;
+	private RoadNetwork network;
+
+
+	public RoadNetworkTest() {
+		twoWaySegments = ExampleGeoSegments.twoWaySegments();
+		network = new RoadNetwork(twoWaySegments);
+	}
+
+
+	int count(Iterator<?> it) {
+		int n = 0;
+		while (it.hasNext()) {
+			it.next();
+			++n;
+		}
+		return n;
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("RoadNetwork");
+		show("Every example point is a node",
+			network.nodeCount() == ExampleGeoSegments.points.length);
+		show("Every segment is an edge", network.edgeCount() == twoWaySegments.size());
+		show("Unknown points have no node", network.nodeOf(new GeoPoint(0, 0)) == -1);
+
+		boolean edgesMatch = true, nodesMatch = true;
+		for (int node = 0; node < network.nodeCount(); ++node) {
+			nodesMatch &= network.nodeOf(network.pointOf(node)) == node;
+			for (int e = network.firstEdge(node); e < network.endEdge(node); ++e) {
+				GeoSegment gs = network.edgeSegment(e);
+				edgesMatch &= gs.getP1().equals(network.pointOf(node))
+					&& gs.getP2().equals(network.pointOf(network.edgeTarget(e)))
+					&& network.edgeSource(e) == node;
+			}
+		}
+		show("Nodes round-trip through their points", nodesMatch);
+		show("Edges leave their source and enter their target", edgesMatch);
+
+		GeoPoint zivSquare = ExampleGeoSegments.points[1];
+		int ziv = network.nodeOf(zivSquare);
+		show("Two edges leave Ziv Square", network.outDegree(ziv) == 2);
+
+		show("GeoPointTable");
+		GeoPointTable table = new GeoPointTable();
+		boolean interned = true;
+		for (GeoPoint gp : ExampleGeoSegments.points)
+			interned &= table.intern(gp) == table.intern(gp.getLatitude(), gp.getLongitude());
+		show("Interning returns one index per distinct point",
+			interned && table.size() == ExampleGeoSegments.points.length);
+		int extra = table.add(ExampleGeoSegments.points[0]);
+		show("Adding appends even a known point", extra == table.size() - 1 && table.indexOf(ExampleGeoSegments.points[0]) == 0);
+		GeoPointTable.Cursor cursor = table.cursor().moveTo(1), other = table.cursor().moveTo(0);
+		show("Cursors read points in place", cursor.isAt(ExampleGeoSegments.points[1])
+			&& cursor.getLatitude() == ExampleGeoSegments.points[1].getLatitude()
+			&& cursor.distanceTo(other) == ExampleGeoSegments.points[1].distanceTo(ExampleGeoSegments.points[0])
+			&& table.get(1).equals(ExampleGeoSegments.points[1]));
+
+		show("Router");
+		Router router = new Router(network);
+		GeoPoint[] points = ExampleGeoSegments.points;
+		Route route = router.shortestRoute(points[0], points[3]);
+		show("Route starts and ends at the requested points",
+			route.getStart().equals(points[0]) && route.getEnd().equals(points[3]));
+		show("Hankin Road then Trumpeldor Avenue", count(route.getGeoFeatures()) == 2
+			&& route.getGeoFeatures().next().getName().equals("Hankin Road"));
+		show("shortestDistance() is the length of shortestRoute()",
+			router.shortestDistance(points[0], points[3]) == route.getLength());
+		show("Distance is symmetric on two-way streets",
+			Math.abs(router.shortestDistance(points[3], points[0]) - route.getLength()) < 1e-6);
+		show("No route to a point outside the network",
+			router.shortestRoute(points[0], new GeoPoint(0, 0)) == null);
+		Router oneWay = new Router(new RoadNetwork(Arrays.asList(ExampleGeoSegments.segments)));
+		show("One-way streets are followed in their direction only",
+			oneWay.shortestDistance(points[1], points[0]) > router.shortestDistance(points[1], points[0]) + 1);
+
+		show("ContractionHierarchy");
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(network);
+		boolean distancesMatch = true, routesMatch = true;
+		for (GeoPoint from : points) {
+			for (GeoPoint to : points) {
+				double expected = router.shortestDistance(from, to);
+				distancesMatch &= Math.abs(hierarchy.shortestDistance(from, to) - expected) < 1e-6;
+				Route r = hierarchy.shortestRoute(from, to);
+				routesMatch &= from.equals(to) ? r == null
+					: r.getStart().equals(from) && r.getEnd().equals(to)
+						&& Math.abs(r.getLength() - expected) < 1e-6;
+			}
+		}
+		show("Same distances as the Router", distancesMatch);
+		show("Routes are unpacked into network segments", routesMatch);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			hierarchy.write(out);
+			ContractionHierarchy loaded = ContractionHierarchy.read(network,
+				new ByteArrayInputStream(out.toByteArray()));
+			show("A saved hierarchy loads back", Math.abs(loaded.shortestDistance(points[0], points[3])
+				- route.getLength()) < 1e-6);
+			boolean rejected = false;
+			try {
+				ContractionHierarchy.read(oneWay.getNetwork(), new ByteArrayInputStream(out.toByteArray()));
+			} catch (IOException e) {
+				rejected = true;
+			}
+			show("A saved hierarchy is rejected for another network", rejected);
+			// node 1 gets the rank of node 0, edge 0 a source out of range,
+			// and the edge count becomes 2^31 - 1
+			byte[] twoFirsts = out.toByteArray(), strayEdge = out.toByteArray(), manyEdges = out.toByteArray();
+			System.arraycopy(twoFirsts, 20, twoFirsts, 24, 4);
+			strayEdge[20 + 4 * network.nodeCount()] = 0x7F;
+			System.arraycopy(new byte[] { 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF }, 0, manyEdges, 16, 4);
+			int corruptRejected = 0;
+			for (byte[] corrupt : new byte[][] { twoFirsts, strayEdge, manyEdges })
+				try {
+					ContractionHierarchy.read(network, new ByteArrayInputStream(corrupt));
+				} catch (IOException e) {
+					++corruptRejected;
+				}
+			show("A hierarchy with bad ranks, edge indices or edge count is rejected", corruptRejected == 3);
+		} catch (IOException e) {
+			show("A saved hierarchy loads back", false);
+		}
+
+		show("DistanceMatrix");
+		GeoPoint[] targets = { points[3], new GeoPoint(0, 0), points[0] };
+		DistanceMatrix matrix = DistanceMatrix.compute(network, points, targets);
+		boolean matrixMatches = matrix.rows() == points.length && matrix.columns() == targets.length;
+		for (int i = 0; i < points.length; ++i)
+			for (int j = 0; j < targets.length; ++j)
+				matrixMatches &= matrix.kilometers(i, j) == router.shortestDistance(points[i], targets[j]);
+		show("Entries are the Router's distances", matrixMatches);
+		show("Walking minutes and driving kilometers are rounded like the formatters",
+			matrix.walkingMinutes(0, 0) == (int) Math.rint(route.getLength() * 20)
+			&& Math.abs(matrix.drivingKilometers(0, 0) * 10 - Math.rint(route.getLength() * 10)) < 1e-9);
+
+		show("Isochrone");
+		Isochrone walk = Isochrone.walking(router, zivSquare, 15);
+		boolean withinBudget = true;
+		for (GeoSegment gs : walk.getReachableSegments())
+			withinBudget &= router.shortestDistance(zivSquare, gs.getP2()) * 20 <= 15 + 1e-6;
+		show("Reachable segments can be walked in 15 minutes from Ziv Square", withinBudget);
+		boolean cutAtBudget = !walk.getPartialSegments().isEmpty();
+		for (GeoSegment gs : walk.getPartialSegments())
+			cutAtBudget &= Math.abs((router.shortestDistance(zivSquare, gs.getP1()) + gs.getLength()) * 20 - 15) < 0.05;
+		show("Partial segments end where the 15 minutes run out", cutAtBudget);
+		show("The boundary surrounds Ziv Square", walk.getBoundary().size() >= 3);
+		Isochrone[] walks = Isochrone.walking(router, new GeoPoint[] { zivSquare, new GeoPoint(0, 0) }, 15,
+			ForkJoinPool.commonPool());
+		show("Batched isochrones match single ones", walks[0].getReachableSegments().equals(walk.getReachableSegments())
+			&& walks[1] == null);
+
+		show("SpatialIndex");
+		SpatialIndex index = new SpatialIndex(network);
+		SpatialIndex.Match match = new SpatialIndex.Match();
+		GeoSegment hankin = ExampleGeoSegments.segments[0];
+		GeoPoint nearHankin = new GeoPoint(
+			(hankin.getP1().getLatitude() + hankin.getP2().getLatitude()) / 2 + 30,
+			(hankin.getP1().getLongitude() + hankin.getP2().getLongitude()) / 2);
+		show("A point off the road snaps to the closest segment",
+			index.nearestSegment(nearHankin, match) && match.getSegment(network).getName().equals(hankin.getName())
+			&& match.getDistance() < 0.01 && match.getOffset() > 0 && match.getOffset() < hankin.getLength());
+		show("A node snaps to itself", index.nearestSegment(points[3], match) && match.getDistance() == 0
+			&& match.getProjectedPoint().equals(points[3]));
+		SpatialIndex.Match[] matches = { new SpatialIndex.Match(), new SpatialIndex.Match(), new SpatialIndex.Match() };
+		show("k nearest segments come closest first", index.nearestSegments(nearHankin, 3, matches) == 3
+			&& matches[0].getDistance() <= matches[1].getDistance()
+			&& matches[1].getDistance() <= matches[2].getDistance());
+		int[] found = new int[network.edgeCount()];
+		show("A box around the network holds every segment", index.segmentsWithin(GeoPoint.MIN_LATITUDE,
+			GeoPoint.MIN_LONGITUDE, GeoPoint.MAX_LATITUDE, GeoPoint.MAX_LONGITUDE, found) == network.edgeCount());
+
+		show("GeoKernels");
+		int length = points.length;
+		int[] lats = new int[length], lons = new int[length];
+		for (int i = 0; i < length; ++i) {
+			lats[i] = points[i].getLatitude();
+			lons[i] = points[i].getLongitude();
+		}
+		double[] lengths = new double[length], headings = new double[length], fromFirst = new double[length];
+		GeoKernels.segmentLengths(lats, lons, lengths, 0, length - 1);
+		GeoKernels.segmentHeadings(lats, lons, headings, 0, length - 1);
+		GeoKernels.distancesFrom(lats[0], lons[0], lats, lons, fromFirst, 0, length);
+		boolean lengthsMatch = true, headingsMatch = true, fromFirstMatch = true;
+		for (int i = 0; i < length - 1; ++i) {
+			double expected = points[i].distanceTo(points[i + 1]);
+			lengthsMatch &= Math.abs(lengths[i] - expected) < 1e-10;
+			headingsMatch &= points[i].equals(points[i + 1]) || headings[i] == points[i].headingTo(points[i + 1]);
+		}
+		for (int i = 0; i < length; ++i)
+			fromFirstMatch &= Math.abs(fromFirst[i] - points[0].distanceTo(points[i])) < 1e-10;
+		show("Batched lengths match distanceTo", lengthsMatch && fromFirstMatch);
+		show("Batched headings match headingTo", headingsMatch);
+
+		show("GeoMetric");
+		GeoPoint hagalil = points[3];
+		show("TECHNION is the model of GeoPoint",
+			GeoMetric.TECHNION.distance(zivSquare, hagalil) == zivSquare.distanceTo(hagalil)
+			&& GeoMetric.TECHNION.heading(zivSquare, hagalil) == zivSquare.headingTo(hagalil));
+		double spherical = GeoMetric.SPHERICAL.distance(zivSquare, hagalil);
+		show("EQUIRECTANGULAR agrees with SPHERICAL nearby",
+			Math.abs(GeoMetric.EQUIRECTANGULAR.distance(zivSquare, hagalil) - spherical) < 1e-4 * spherical
+			&& Math.abs(GeoMetric.EQUIRECTANGULAR.heading(zivSquare, hagalil)
+				- GeoMetric.SPHERICAL.heading(zivSquare, hagalil)) < 0.1);
+		show("TILED stays accurate away from the Technion",
+			Math.abs(GeoMetric.TILED.distance(0, 0, 0, 1000000) - 111.3195) < 0.001
+			&& Math.abs(GeoMetric.TILED.distance(60000000, 0, 60000000, 1000000) - 55.7997) < 0.001
+			&& Math.abs(GeoMetric.TILED.distance(zivSquare, hagalil) - spherical) < 0.005 * spherical);
+		List<GeoSegment> sphericalSegments = new ArrayList<>();
+		for (GeoSegment gs : twoWaySegments)
+			sphericalSegments.add(new GeoSegment(gs.getName(), gs.getP1(), gs.getP2(), GeoMetric.SPHERICAL));
+		RoadNetwork sphericalNetwork = new RoadNetwork(sphericalSegments);
+		Route sphericalRoute = new Router(sphericalNetwork).shortestRoute(points[0], points[3]);
+		show("Networks and routes use the metric of their segments",
+			sphericalNetwork.getMetric() == GeoMetric.SPHERICAL && sphericalRoute != null
+			&& sphericalRoute.getGeoSegments().next().getMetric() == GeoMetric.SPHERICAL);
+		boolean mixedRejected = false;
+		try {
+			sphericalSegments.add(ExampleGeoSegments.segments[0]);
+			new RoadNetwork(sphericalSegments);
+		} catch (IllegalArgumentException e) {
+			mixedRejected = true;
+		}
+		show("Segments of different metrics do not make a network", mixedRejected);
+
+		show("SpatialKeys and MortonOrder");
+		boolean roundTrips = true;
+		for (GeoPoint gp : points)
+			roundTrips &= SpatialKeys.fromMortonKey(SpatialKeys.mortonKey(gp)).equals(gp);
+		show("Morton keys decode to the same point", roundTrips);
+		show("Geohashes match the reference encoding",
+			SpatialKeys.geohash(new GeoPoint(57649110, 10407440), 11).equals("u4pruydqqvj"));
+		GeoPoint cell = SpatialKeys.geohashCenter(SpatialKeys.geohash(zivSquare, 9));
+		show("A geohash cell contains its point", Math.abs(cell.getLatitude() - zivSquare.getLatitude()) < 25
+			&& Math.abs(cell.getLongitude() - zivSquare.getLongitude()) < 25);
+		MortonOrder order = new MortonOrder(network);
+		int[] inOrder = new int[network.edgeCount()];
+		int lat = zivSquare.getLatitude(), lon = zivSquare.getLongitude();
+		int inBox = order.segmentsWithin(lat - 2000, lon - 2000, lat + 2000, lon + 2000, inOrder);
+		int inGrid = index.segmentsWithin(lat - 2000, lon - 2000, lat + 2000, lon + 2000, found);
+		int[] a = Arrays.copyOf(inOrder, inBox), b = Arrays.copyOf(found, inGrid);
+		Arrays.sort(a);
+		Arrays.sort(b);
+		show("Range scans find the same segments as the grid", inBox > 0 && Arrays.equals(a, b));
+
+		show("StreetNames");
+		GeoSegment hankinAgain = new GeoSegment(new String("Hankin Road"), points[3], points[0]);
+		show("Equal names share an id and a String", hankinAgain.getNameId() == hankin.getNameId()
+			&& hankinAgain.getName() == hankin.getName()
+			&& StreetNames.global().name(hankin.getNameId()) == hankin.getName());
+		show("Features carry the name id of their segments",
+			route.getGeoFeatures().next().getNameId() == route.getGeoSegments().next().getNameId());
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			network.write(out);
+			RoadNetwork loaded = RoadNetwork.read(new ByteArrayInputStream(out.toByteArray()));
+			boolean segmentsMatch = loaded.edgeCount() == network.edgeCount();
+			for (int e = 0; segmentsMatch && e < network.edgeCount(); ++e)
+				segmentsMatch = loaded.edgeSegment(e).equals(network.edgeSegment(e));
+			show("A saved network loads back with the same ids", segmentsMatch
+				&& loaded.fingerprint() == network.fingerprint());
+			StreetNames shared = new StreetNames();
+			RoadNetwork first = RoadNetwork.read(new ByteArrayInputStream(out.toByteArray()), shared);
+			int firstSize = shared.size();
+			RoadNetwork second = RoadNetwork.read(new ByteArrayInputStream(out.toByteArray()), shared);
+			boolean namesShared = firstSize > 0 && shared.size() == firstSize;
+			for (int e = 0; namesShared && e < network.edgeCount(); ++e)
+				namesShared = first.edgeNameId(e) == second.edgeNameId(e)
+					&& shared.name(first.edgeNameId(e)).equals(network.edgeName(e));
+			show("Networks loaded into one name table share its ids", namesShared);
+			// the node count, then the edge count, becomes 2^31 - 1
+			byte[] manyNodes = out.toByteArray(), manyEdges = out.toByteArray();
+			byte[] largest = { 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF };
+			System.arraycopy(largest, 0, manyNodes, 8, 4);
+			System.arraycopy(largest, 0, manyEdges, 12, 4);
+			int corruptRejected = 0;
+			for (byte[] corrupt : new byte[][] { manyNodes, manyEdges })
+				try {
+					RoadNetwork.read(new ByteArrayInputStream(corrupt));
+				} catch (IOException e) {
+					++corruptRejected;
+				}
+			show("A network with a bad node or edge count is rejected", corruptRejected == 2);
+			ByteArrayOutputStream saved = new ByteArrayOutputStream();
+			hierarchy.write(saved);
+			show("A hierarchy saved for a network loads for the network read back",
+				ContractionHierarchy.read(loaded, new ByteArrayInputStream(saved.toByteArray()))
+					.shortestDistance(points[0], points[3]) == route.getLength());
+		} catch (IOException e) {
+			show("A saved network loads back with the same ids", false);
+		}
+
+	}
+}
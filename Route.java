@@ -1,8 +1,14 @@
 package homework1;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
 
 /**
  * A Route is a path that traverses arbitrary GeoSegments, regardless
@@ -16,6 +22,8 @@ import java.util.List;
  * Because a Route is not necessarily straight, its length - the distance
  * traveled by following the path from start to end - is not necessarily
  * the same as the distance along a straight line between its endpoints.
+ * The length is summed in whole millimeters (see Lengths), so it is exact
+ * and does not depend on how the Route was put together.
  * <p>
  * Lastly, a Route may be viewed as a sequence of geographical features,
  * using the <tt>getGeoFeatures()</tt> method which returns an Iterator of
@@ -35,47 +43,118 @@ import java.util.List;
  **/
 public class Route {
 	private final GeoPoint start;
-	private GeoPoint end;
-	private double start_heading, end_heading;
-	private final List<GeoFeature> geo_features;
-	private final List<GeoSegment> geo_segments;
-	private double length;
-	private GeoSegment ending_geo_segment;
+	private final GeoPoint end;
+	private final double start_heading, end_heading;
+	private final PersistentList<GeoFeature> geo_features;
+	private final GeoFeature last_geo_feature;
+	private final PersistentList<GeoSegment> geo_segments;
+	private final long length_mm;
+	private final GeoSegment ending_geo_segment;
+	private final int hash;
+
+	// geo_features holds every feature of the route except the last one,
+	// which is kept in last_geo_feature. Appending a segment either extends
+	// last_geo_feature or moves it into geo_features, so addSegment() never
+	// touches the earlier features. Both lists are PersistentLists, so a
+	// Route created by addSegment() shares all of its state with the Route
+	// it was created from.
+	//
+	// hash is kept equal to geo_segments.hashCode(), which addSegment()
+	// updates in O(1) by the List.hashCode() recurrence. Routes with equal
+	// geoFeatures have equal geoSegments, so this agrees with equals().
 	
  	// TODO Write abstraction function and representation invariant
 	// Abs. Function for every Route r:
 	// r represents a geographical route between r.start and r.end that goes through
 	// r.geoFeatures, routes length is r.length and r.startHeading represents the starting movement angle
+	// where r.geoFeatures = r.geo_features + [r.last_geo_feature]
 
 	// Rep. Invariant for every Route r:
-	// r.start != null && r.end != null && r.ending_geo_segment != null && r.length >= 0 &&
-	// geoFeatures != null && geoFeatures contains at least one GeoFeature &&
+	// r.start != null && r.end != null && r.ending_geo_segment != null && r.length_mm >= 0 &&
+	// geo_features != null && last_geo_feature != null &&
+	// for all i: geoFeatures.get(i).getName() != geoFeatures.get(i+1).getName() &&
 	// geoSegments != null && geoSegments contains at least one GeoSegment &&
 	// for all i: gf.geoSegments.get(i).getP2().equals(gf.geoSegments.get(i+1).getP1())
 	// NOTE: i in [0,geoSegments.size()-1]
 	// i.e., all geo segments come aligned one after the other
 	// Do we need to check that for every feature in geoFeatures, feature segments fit the feature (same name)?
 
+	private static final Validation.Level CHECK_LEVEL = Validation.levelFor(Route.class);
+	private static final Validation.Counter CHECK_COUNTER = Validation.counterFor(Route.class);
+
 	/**
-	 * Checks if representation invariant holds for every GeoSegment gs
+	 * Checks if representation invariant holds for every Route r, on the
+	 * accesses selected by the Validation level of this class
 	 * @throws AssertionError if representation invariant is violated
 	 * */
 	private void checkRep(){
-		assert (start != null && end != null) : "invalid geo points";
-		assert ending_geo_segment != null : "invalid endingGeoSegment";
-		assert length >= 0 : "invalid length";
-		assert (geo_features != null && geo_features.size() >= 1) : "invalid geoFeatures";
-		for(GeoFeature gf: geo_features){
-			Iterator<GeoSegment> it = gf.getGeoSegments();
-			while(it.hasNext()){
-				GeoSegment gs = it.next();
-				assert gf.getName().equals(gs.getName()) : "invalid segment in feature";
+		if(Validation.onAccess(CHECK_LEVEL))
+			verifyRep();
+	}
+
+	/**
+	 * Checks if representation invariant holds for a new Route. Unless the
+	 * Validation level of this class is FULL, only the end of the route is
+	 * checked: a Route is either built from a single segment, extends a
+	 * Route that was checked when it was created, or comes from a
+	 * RouteBuilder that checked every segment as it was added.
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void checkNewRep(){
+		if(CHECK_LEVEL == Validation.Level.FULL)
+			verifyRep();
+		else if(Validation.onConstruction(CHECK_LEVEL))
+			verifyTail();
+	}
+
+	/**
+	 * Checks the whole representation invariant. Takes O(length of route).
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void verifyRep(){
+		long start_time = Validation.start();
+		verifyFields();
+		GeoFeature prev = null;
+		for(GeoFeature gf: new FeatureView()){
+			for(GeoSegment gs: gf.geoSegmentList()){
+				Validation.check(gf.getNameId() == gs.getNameId(), "invalid segment in feature");
 			}
+			Validation.check(prev == null || prev.getNameId() != gf.getNameId(), "consecutive features with the same name");
+			prev = gf;
 		}
-		assert (geo_segments != null && geo_segments.size() >= 1) : "invalid geoSegments";
 		for(int i=0; i<geo_segments.size()-1; ++i){
-			assert geo_segments.get(i).getP2().equals(geo_segments.get(i+1).getP1()) : "invalid geo feature points";
+			Validation.check(geo_segments.get(i).getP2().equals(geo_segments.get(i+1).getP1()), "invalid geo feature points");
+		}
+		Validation.check(hash == geo_segments.hashCode(), "invalid hash");
+		Validation.finish(CHECK_COUNTER, start_time);
+	}
+
+	/**
+	 * Checks the representation invariant at the end of the route only.
+	 * Takes O(1).
+	 * @throws AssertionError if representation invariant is violated
+	 * */
+	private void verifyTail(){
+		long start_time = Validation.start();
+		verifyFields();
+		int n = geo_segments.size();
+		Validation.check(geo_segments.last() == ending_geo_segment, "invalid endingGeoSegment");
+		Validation.check(n < 2 || geo_segments.get(n-2).getP2().equals(ending_geo_segment.getP1()), "invalid geo feature points");
+		Validation.check(last_geo_feature.getEnd().equals(end), "invalid last geoFeature");
+		if(!geo_features.isEmpty()){
+			GeoFeature prev = geo_features.last();
+			Validation.check(prev.getNameId() != last_geo_feature.getNameId(), "consecutive features with the same name");
+			Validation.check(prev.getEnd().equals(last_geo_feature.getStart()), "invalid geo feature points");
 		}
+		Validation.finish(CHECK_COUNTER, start_time);
+	}
+
+	private void verifyFields(){
+		Validation.check(start != null && end != null, "invalid geo points");
+		Validation.check(ending_geo_segment != null, "invalid endingGeoSegment");
+		Validation.check(length_mm >= 0, "invalid length");
+		Validation.check(geo_features != null && last_geo_feature != null, "invalid geoFeatures");
+		Validation.check(geo_segments != null && geo_segments.size() >= 1, "invalid geoSegments");
 	}
 
   	/**
@@ -92,13 +171,13 @@ public class Route {
 		end_heading = start_heading;
 		start = gs.getP1();
 		end = gs.getP2();
-		geo_features = new ArrayList<>();
-		geo_segments = new ArrayList<>();
-		geo_features.add(new GeoFeature(new GeoSegment(gs)));
-		geo_segments.add(new GeoSegment(gs));
-		length = 0;
-		ending_geo_segment = new GeoSegment(gs);
-		checkRep();
+		geo_features = PersistentList.empty();
+		geo_segments = PersistentList.of(gs);
+		hash = 31 + gs.hashCode();
+		last_geo_feature = new GeoFeature(geo_segments, gs.getLengthMillimeters(), hash);
+		length_mm = gs.getLengthMillimeters();
+		ending_geo_segment = gs;
+		checkNewRep();
   	}
 
 	/**
@@ -112,19 +191,98 @@ public class Route {
 	public Route(Route route){
 		start_heading = route.start_heading;
 		end_heading = route.end_heading;
-		start = new GeoPoint(route.start);
-		end = new GeoPoint(route.end);
-		geo_features = new ArrayList<>();
-		geo_segments = new ArrayList<>();
-		for(GeoFeature gf: route.geo_features){
-			geo_features.add(new GeoFeature(gf));
+		start = route.start;
+		end = route.end;
+		geo_features = route.geo_features;
+		last_geo_feature = route.last_geo_feature;
+		geo_segments = route.geo_segments;
+		length_mm = route.length_mm;
+		ending_geo_segment = route.ending_geo_segment;
+		hash = route.hash;
+		checkNewRep();
+	}
+
+	/**
+	 * Constructs the Route that results from appending gs to prev.
+	 * @requires prev != null && gs != null && gs.p1 = prev.end
+	 * @effects constructs a new Route that shares the features and segments
+	 * 			of prev and ends with gs
+	 **/
+	private Route(Route prev, GeoSegment gs){
+		start_heading = prev.start_heading;
+		end_heading = gs.getHeading();
+		start = prev.start;
+		end = gs.getP2();
+		geo_segments = prev.geo_segments.append(gs);
+		if(prev.last_geo_feature.getNameId() == gs.getNameId()){
+			geo_features = prev.geo_features;
+			last_geo_feature = prev.last_geo_feature.addSegment(gs);
+		}else{
+			geo_features = prev.geo_features.append(prev.last_geo_feature);
+			// the new feature is a view of the route's own segment array, so
+			// extending both of them later claims a single slot
+			last_geo_feature = new GeoFeature(geo_segments.slice(geo_segments.size() - 1, 1),
+					gs.getLengthMillimeters(), 31 + gs.hashCode());
 		}
-		for(GeoSegment gs: route.geo_segments){
-			geo_segments.add(new GeoSegment(gs));
+		length_mm = prev.length_mm + gs.getLengthMillimeters();
+		ending_geo_segment = gs;
+		hash = 31 * prev.hash + gs.hashCode();
+		checkNewRep();
+	}
+
+	/**
+	 * Constructs a Route from already grouped features. Used by RouteBuilder,
+	 * which has validated the segments.
+	 * @requires features != null && last != null && segments != null &&
+	 * 			 features + [last] are the features of segments, in order &&
+	 * 			 length_mm = sum(0 <= i < segments.size()) . segments[i].getLengthMillimeters() &&
+	 * 			 hash = segments.hashCode()
+	 * @effects constructs a new Route over segments without copying them
+	 **/
+	Route(PersistentList<GeoFeature> features, GeoFeature last,
+		  PersistentList<GeoSegment> segments, long length_mm, int hash){
+		GeoSegment first = segments.get(0);
+		start_heading = first.getHeading();
+		end_heading = last.getEndHeading();
+		start = first.getP1();
+		end = last.getEnd();
+		geo_features = features;
+		last_geo_feature = last;
+		geo_segments = segments;
+		this.length_mm = length_mm;
+		ending_geo_segment = segments.last();
+		this.hash = hash;
+		checkNewRep();
+	}
+
+	/**
+	 * Creates a new Route that traverses segments, in order.
+	 * @requires segments != null
+	 * @return a new Route r such that r.geoSegments = segments
+	 * @throws IllegalArgumentException if segments is empty or two
+	 * 		   consecutive segments are not connected
+	 * @see homework1.RouteBuilder
+	 **/
+	public static Route of(Iterable<GeoSegment> segments) {
+		RouteBuilder builder = (segments instanceof Collection)
+				? new RouteBuilder(((Collection<?>) segments).size())
+				: new RouteBuilder();
+		for(GeoSegment gs: segments){
+			builder.add(gs);
 		}
-		length = route.length;
-		ending_geo_segment = new GeoSegment(route.ending_geo_segment);
-		checkRep();
+		if(builder.isEmpty())
+			throw new IllegalArgumentException("a Route needs at least one GeoSegment");
+		return builder.build();
+	}
+
+	/**
+	 * Returns a Collector that gathers a stream of GeoSegments into a Route.
+	 * @return a Collector that collects contiguous GeoSegments, in encounter
+	 * 		   order, into a Route as Route.of() does
+	 * @see homework1.RouteBuilder
+	 **/
+	public static Collector<GeoSegment, ?, Route> collector() {
+		return Collector.of(RouteBuilder::new, RouteBuilder::add, RouteBuilder::addAll, RouteBuilder::build);
 	}
 
     /**
@@ -133,7 +291,7 @@ public class Route {
      **/
   	public GeoPoint getStart() {
   		checkRep();
-		return new GeoPoint(start);
+		return start;
   	}
 
 
@@ -143,7 +301,7 @@ public class Route {
      **/
   	public GeoPoint getEnd() {
   		checkRep();
-		return new GeoPoint(end);
+		return end;
   	}
 
 
@@ -177,7 +335,18 @@ public class Route {
    	 **/
   	public double getLength() {
   		checkRep();
-		return length;
+		return Lengths.toKilometers(length_mm);
+  	}
+
+
+  	/**
+  	 * Returns total length of the route in whole millimeters.
+     * @return the sum of the getLengthMillimeters() of the segments of this
+     *         route
+   	 **/
+  	public long getLengthMillimeters() {
+  		checkRep();
+		return length_mm;
   	}
 
 
@@ -192,28 +361,7 @@ public class Route {
      **/
   	public Route addSegment(GeoSegment gs) {
   		checkRep();
-		Route r = new Route(geo_segments.get(0));
-		r.geo_segments.remove(0);
-		r.geo_features.remove(0);
-		r.length = length + gs.getLength();
-		r.end = new GeoPoint(gs.getP2());
-		r.end_heading = gs.getHeading();
-		for (GeoSegment segment: geo_segments) {
-			r.geo_segments.add(new GeoSegment(segment));
-		}
-		r.geo_segments.add(new GeoSegment(gs));
-		GeoFeature updated;
-		for(GeoFeature gf: geo_features){
-			if(gf.getName().equals(gs.getName())){
-				updated = gf.addSegment(new GeoSegment(gs));
-				r.geo_features.add(updated);
-			}else{
-				updated = new GeoFeature(gf);
-				r.geo_features.add(updated);
-			}
-		}
-		checkRep();
-		return r;
+		return new Route(this, gs);
   	}
 
 
@@ -237,12 +385,7 @@ public class Route {
      **/
   	public Iterator<GeoFeature> getGeoFeatures() {
   		checkRep();
-		List<GeoFeature> geo_feature_copy = new ArrayList<>();
-		for(GeoFeature gf: geo_features){
-			geo_feature_copy.add(new GeoFeature(gf));
-		}
-		checkRep();
-		return geo_feature_copy.iterator();
+		return geoFeatureList().iterator();
   	}
 
 
@@ -262,12 +405,62 @@ public class Route {
      **/
   	public Iterator<GeoSegment> getGeoSegments() {
   		checkRep();
-		List<GeoSegment> geo_seg_copy = new ArrayList<>();
-		for(GeoSegment gs: geo_segments){
-			geo_seg_copy.add(new GeoSegment(gs));
-		}
-		checkRep();
-		return geo_seg_copy.iterator();
+		return geo_segments.iterator();
+  	}
+
+
+  	/**
+  	 * Returns a read-only view of the GeoFeatures of this route. The view is
+  	 * not a copy; its iterators and spliterators visit the features in order
+  	 * without allocating per feature.
+  	 * @return an unmodifiable List l such that l = this.geoFeatures, in the
+  	 * 		   order documented by getGeoFeatures()
+  	 **/
+  	public List<GeoFeature> geoFeatureList() {
+  		checkRep();
+  		return new FeatureView();
+  	}
+
+
+  	/**
+  	 * Returns a read-only view of the GeoSegments of this route. The view is
+  	 * not a copy; its iterators and spliterators visit the segments in order
+  	 * without allocating per segment.
+  	 * @return an unmodifiable List l such that l = this.geoSegments, in the
+  	 * 		   order documented by getGeoSegments()
+  	 **/
+  	public List<GeoSegment> geoSegmentList() {
+  		checkRep();
+  		return geo_segments;
+  	}
+
+
+  	/**
+  	 * Unmodifiable view of geo_features + [last_geo_feature].
+  	 **/
+  	private final class FeatureView extends AbstractList<GeoFeature> implements RandomAccess {
+
+  		@Override
+  		public GeoFeature get(int index) {
+  			return (index == geo_features.size()) ? last_geo_feature : geo_features.get(index);
+  		}
+
+  		@Override
+  		public int size() {
+  			return geo_features.size() + 1;
+  		}
+
+  		@Override
+  		public void forEach(Consumer<? super GeoFeature> action) {
+  			geo_features.forEach(action);
+  			action.accept(last_geo_feature);
+  		}
+
+  		@Override
+  		public Spliterator<GeoFeature> spliterator() {
+  			return Spliterators.spliterator(this,
+  					Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+  		}
   	}
 
 
@@ -279,10 +472,13 @@ public class Route {
      **/
   	public boolean equals(Object o) {
   		checkRep();
+		if(o == this)
+			return true;
 		if((o == null) || !(o instanceof Route))
 			return false;
 		checkRep();
-		return geo_features.equals(((Route) o).geo_features);
+		Route r = (Route) o;
+		return hash == r.hash && geo_features.equals(r.geo_features) && last_geo_feature.equals(r.last_geo_feature);
   	}
 
 
@@ -291,9 +487,8 @@ public class Route {
      * @return a hash code for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// for improved performance.
-    	return 1;
+  		checkRep();
+    	return hash;
   	}
 
 
@@ -303,7 +498,7 @@ public class Route {
      **/
   	public String toString() {
   		checkRep();
-		return new String("Printing Route:\n" + geo_features.toString());
+		return new String("Printing Route:\n" + geoFeatureList().toString());
   	}
 
 }
@@ -0,0 +1,184 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A RouteBuilder assembles a Route from a sequence of GeoSegments in a
+ * single pass. RouteBuilders are mutable and are not thread-safe.
+ * <p>
+ * Building a long Route by calling <tt>Route.addSegment()</tt> repeatedly
+ * validates the whole route on every step. A RouteBuilder instead checks
+ * each segment once, against the segment before it, as it is added, and
+ * groups consecutive segments with the same name into GeoFeatures while
+ * doing so. <tt>build()</tt> hands the collected arrays to the new Route
+ * without copying them, so with an accurate expected size every backing
+ * array is allocated exactly once.
+ * <p>
+ * A RouteBuilder builds a single Route. After <tt>build()</tt> is called it
+ * can not be used anymore.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   segments : sequence    // the segments added so far, in order
+ * </pre>
+ **/
+public class RouteBuilder {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] segments;
+	private int size;
+	private int[] feature_starts;
+	private long[] feature_lengths;	// in millimeters
+	private int[] feature_hashes;
+	private int feature_count;
+	private long length;			// in millimeters
+	private int hash = 1;
+
+	// Abs. Function for every RouteBuilder b:
+	// b.segments = [b.segments[0], ..., b.segments[b.size-1]], where
+	// feature i consists of the segments in [b.feature_starts[i], b.feature_starts[i+1])
+	// (the last feature ends at b.size), has length b.feature_lengths[i]
+	// and hash code b.feature_hashes[i]
+
+	// Rep. Invariant for every RouteBuilder b that was not built yet:
+	// b.segments != null && 0 <= b.size <= b.segments.length &&
+	// 0 <= b.feature_count <= b.feature_starts.length == b.feature_lengths.length
+	//   == b.feature_hashes.length &&
+	// (b.size == 0) == (b.feature_count == 0) &&
+	// for all 0 < i < b.size: segments[i-1].p2 = segments[i].p1
+	// b.length = sum(0 <= i < b.size) . segments[i].getLengthMillimeters()
+	// b.hash = b.segments.hashCode()
+
+	/**
+	 * Constructs an empty RouteBuilder.
+	 * @effects constructs a new RouteBuilder b such that b.segments = []
+	 **/
+	public RouteBuilder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty RouteBuilder sized for a route of expectedSize
+	 * segments.
+	 * @requires expectedSize >= 0
+	 * @effects constructs a new RouteBuilder b such that b.segments = []
+	 **/
+	public RouteBuilder(int expectedSize) {
+		segments = new Object[Math.max(1, expectedSize)];
+		feature_starts = new int[DEFAULT_CAPACITY];
+		feature_lengths = new long[DEFAULT_CAPACITY];
+		feature_hashes = new int[DEFAULT_CAPACITY];
+	}
+
+	/**
+	 * Appends a segment to the route being built.
+	 * @requires gs != null
+	 * @modifies this
+	 * @effects this.segments = this.segments + [gs]
+	 * @return this
+	 * @throws IllegalArgumentException if gs.p1 != the end of the last
+	 * 		   segment added
+	 * @throws IllegalStateException if build() was already called
+	 **/
+	public RouteBuilder add(GeoSegment gs) {
+		checkNotBuilt();
+		GeoSegment last = (size == 0) ? null : (GeoSegment) segments[size - 1];
+		if (last != null && !last.getP2().equals(gs.getP1()))
+			throw new IllegalArgumentException("segment " + size + " " + gs
+					+ " does not start at the end of " + last);
+		if (last == null || last.getNameId() != gs.getNameId())
+			startFeature();
+		if (size == segments.length)
+			segments = Arrays.copyOf(segments, size * 2);
+		segments[size++] = gs;
+		feature_lengths[feature_count - 1] += gs.getLengthMillimeters();
+		feature_hashes[feature_count - 1] = 31 * feature_hashes[feature_count - 1] + gs.hashCode();
+		length += gs.getLengthMillimeters();
+		hash = 31 * hash + gs.hashCode();
+		return this;
+	}
+
+	/**
+	 * Appends all the segments of another builder to the route being built.
+	 * @requires other != null && other != this
+	 * @modifies this
+	 * @effects this.segments = this.segments + other.segments
+	 * @return this
+	 * @throws IllegalArgumentException if the first segment of other does
+	 * 		   not start at the end of the last segment of this
+	 * @throws IllegalStateException if build() was already called on this
+	 * 		   or on other
+	 **/
+	public RouteBuilder addAll(RouteBuilder other) {
+		other.checkNotBuilt();
+		for (int i = 0; i < other.size; ++i)
+			add((GeoSegment) other.segments[i]);
+		return this;
+	}
+
+	/**
+	 * Returns whether no segment was added yet.
+	 * @return this.segments is empty
+	 **/
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of segments added so far.
+	 * @return the length of this.segments
+	 **/
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Creates the Route made of the segments added so far. This builder can
+	 * not be used after this call.
+	 * @modifies this
+	 * @return a new Route r such that r.geoSegments = this.segments
+	 * @throws IllegalStateException if no segment was added or build() was
+	 * 		   already called
+	 **/
+	public Route build() {
+		checkNotBuilt();
+		if (size == 0)
+			throw new IllegalStateException("a Route needs at least one GeoSegment");
+		PersistentList<GeoSegment> route_segments = PersistentList.wrap(segments, size);
+		Object[] features = new Object[feature_count - 1];
+		for (int i = 0; i < feature_count - 1; ++i) {
+			int from = feature_starts[i];
+			features[i] = new GeoFeature(route_segments.slice(from, feature_starts[i + 1] - from),
+					feature_lengths[i], feature_hashes[i]);
+		}
+		int from = feature_starts[feature_count - 1];
+		GeoFeature last = new GeoFeature(route_segments.slice(from, size - from),
+				feature_lengths[feature_count - 1], feature_hashes[feature_count - 1]);
+		segments = null;
+		return new Route(PersistentList.<GeoFeature>wrap(features, features.length), last,
+				route_segments, length, hash);
+	}
+
+	/**
+	 * Opens a new feature at the current end of the route.
+	 * @modifies this
+	 * @effects adds a new, empty feature starting at this.size
+	 **/
+	private void startFeature() {
+		if (feature_count == feature_starts.length) {
+			feature_starts = Arrays.copyOf(feature_starts, feature_count * 2);
+			feature_lengths = Arrays.copyOf(feature_lengths, feature_count * 2);
+			feature_hashes = Arrays.copyOf(feature_hashes, feature_count * 2);
+		}
+		feature_starts[feature_count] = size;
+		feature_lengths[feature_count] = 0;
+		feature_hashes[feature_count] = 1;
+		++feature_count;
+	}
+
+	private void checkNotBuilt() {
+		if (segments == null)
+			throw new IllegalStateException("RouteBuilder was already built");
+	}
+}
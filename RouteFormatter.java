@@ -1,12 +1,29 @@
 package homework1;
 
-
+import java.io.IOException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A RouteFormatter class knows how to create a textual description of
  * directions from one location to another. The class is abstract to
  * support different textual descriptions.
+ * <p>
+ * Directions can be built as one String, written line by line to an
+ * Appendable such as a StringBuilder or a Writer, or produced lazily as a
+ * Stream of lines. Writing and streaming hold one line at a time, so
+ * directions for a route of any length take constant memory beyond the
+ * route itself.
+ * <p>
+ * Every line is written by <tt>appendLine(Turn, String, long, Appendable)</tt>
+ * from the turn onto a feature, its name and its length, which is all a
+ * line depends on. Subclasses implement that one method, and directions
+ * of Routes, of Instructions and of encoded instructions are all rendered
+ * through it.
  */
 public abstract class RouteFormatter {
 
@@ -21,18 +38,85 @@ public abstract class RouteFormatter {
      * 	       human-readable directions from start to end along this route.
      **/
   	public String computeDirections(Route route, double heading) {
-  		// Implementation hint:
-		// This method should call computeLine() for each geographic
-		// feature in this route and concatenate the results into a single
-		// String.
+		StringBuilder computed = new StringBuilder();
+		try {
+			computeDirections(route, heading, computed);
+		} catch (IOException e) {
+			throw new AssertionError(e);	// StringBuilder does not throw
+		}
+  		return computed.toString();
+  	}
+
+
+  	/**
+     * Writes directions for following this Route, starting at its start
+     * point and facing in the specified heading, one line at a time.
+     * @requires route != null && out != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+   	 * @param out where to write the directions.
+     * @modifies out
+     * @effects appends to out the String computeDirections(route, heading)
+     *          returns, writing each line with appendLine()
+     * @throws IOException if appending to out fails
+     **/
+  	public void computeDirections(Route route, double heading, Appendable out) throws IOException {
 		Iterator<GeoFeature> it = route.getGeoFeatures();
-		String computed = new String("");
 		while(it.hasNext()){
 			GeoFeature gf = it.next();
-			computed += computeLine(gf, heading);
+			appendLine(Turn.of(heading, gf.getStartHeading()), gf.getName(), gf.getLengthMillimeters(), out);
 			heading = gf.getEndHeading();
 		}
-  		return computed;
+  	}
+
+
+  	/**
+     * Returns the lines of directions for following this Route, computed
+     * one at a time as they are requested.
+     * @requires route != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+     * @return an Iterator over the newline-terminated lines of
+     *         computeDirections(route, heading), one per geographic
+     *         feature, in order
+     **/
+  	public Iterator<String> lineIterator(Route route, double heading) {
+  		Iterator<GeoFeature> it = route.getGeoFeatures();
+  		return new Iterator<String>() {
+  			private double next_heading = heading;
+
+  			@Override
+  			public boolean hasNext() {
+  				return it.hasNext();
+  			}
+
+  			@Override
+  			public String next() {
+  				if (!it.hasNext())
+  					throw new NoSuchElementException();
+  				GeoFeature gf = it.next();
+  				String line = computeLine(gf, next_heading);
+  				next_heading = gf.getEndHeading();
+  				return line;
+  			}
+  		};
+  	}
+
+
+  	/**
+     * Returns the lines of directions for following this Route as a
+     * sequential Stream, computed one at a time as they are consumed.
+     * @requires route != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+     * @return a Stream of the lines lineIterator(route, heading) returns
+     **/
+  	public Stream<String> lines(Route route, double heading) {
+  		return StreamSupport.stream(Spliterators.spliterator(lineIterator(route, heading),
+  				route.geoFeatureList().size(), Spliterator.ORDERED | Spliterator.NONNULL), false);
   	}
 
 
@@ -44,9 +128,52 @@ public abstract class RouteFormatter {
      * @param geoFeature the geographical feature to traverse.
    	 * @param origHeading the initial heading.
      * @return A newline-terminated <tt>String</tt> that gives directions
-     * 		   on how to traverse this geographic feature.
+     * 		   on how to traverse this geographic feature: the line
+     * 		   appendLine() writes for the turn from origHeading onto
+     * 		   geoFeature, its name and its length.
+     */
+  	public final String computeLine(GeoFeature geoFeature, double origHeading) {
+  		StringBuilder line = new StringBuilder(64);
+  		try {
+  			appendLine(Turn.of(origHeading, geoFeature.getStartHeading()), geoFeature.getName(),
+  					geoFeature.getLengthMillimeters(), line);
+  		} catch (IOException e) {
+  			throw new AssertionError(e);	// StringBuilder does not throw
+  		}
+  		return line.toString();
+  	}
+
+
+  	/**
+     * Writes the directions given by a sequence of Instructions.
+     * @requires instructions != null && out != null
+     * @modifies out
+     * @effects appends the line of every element of instructions to out,
+     *          in order; for Instruction.of(route, heading) this is the
+     *          String computeDirections(route, heading) returns
+     * @throws IOException if appending to out fails
+     */
+  	public void computeDirections(Iterable<Instruction> instructions, Appendable out) throws IOException {
+  		for (Instruction instruction : instructions)
+  			appendLine(instruction.getTurn(), instruction.getName(), instruction.getLengthMillimeters(), out);
+  	}
+
+
+  	/**
+     * Writes a single line of directions from its parts: the turn onto a
+     * geographic feature, the feature's name and its length. Every line
+     * of directions this formatter gives is written by this method.
+     * @requires turn != null && name != null && length_mm >= 0 && out != null
+     * @param turn the turn onto the feature.
+     * @param name the name of the feature.
+     * @param length_mm the length of the feature, in millimeters.
+     * @param out where to write the line.
+     * @modifies out
+     * @effects appends to out a newline-terminated line that gives
+     *          directions on how to traverse the feature
+     * @throws IOException if appending to out fails
      */
-  	public abstract String computeLine(GeoFeature geoFeature, double origHeading);
+  	public abstract void appendLine(Turn turn, String name, long length_mm, Appendable out) throws IOException;
 
 
   	/**
@@ -66,22 +193,45 @@ public abstract class RouteFormatter {
      * Turn sharp right     if 120 <= a < 179
      * U-turn               if 179 <= a
      * </pre>
-     * and likewise for left turns.
+     * and likewise for left turns. The phrase is the one of
+     * Turn.of(origHeading, newHeading), which gives the exact thresholds;
+     * the same String is returned for every call with the same turn.
      */
   	protected String getTurnString(double origHeading, double newHeading) {
-  		double heading = Math.abs(newHeading - origHeading);
-  		if(heading<10){
-  			return new String("Continue ");
-		}else if((heading >= 10) && (heading < 60)){
-  			return new String("Turn slight right ");
-		}else if((heading >= 60) && (heading < 120)){
-			return new String("Turn right  ");
-		}else if((heading >= 120) && (heading < 179)){
-			return new String("Turn sharp right ");
-		}else if(heading == 180){
-  			return new String("U-turn ");
-		}else {
-  			return new String("Turn left ");
-		}
+  		return Turn.of(origHeading, newHeading).phrase();
+  	}
+
+
+  	/**
+     * Writes a nonnegative integer in decimal, without grouping, one digit
+     * at a time.
+     * @requires out != null && value >= 0
+     * @modifies out
+     * @effects appends Long.toString(value) to out
+     * @throws IOException if appending to out fails
+     */
+  	protected static void appendDecimal(Appendable out, long value) throws IOException {
+  		long unit = 1;
+  		while (value / unit >= 10)
+  			unit *= 10;
+  		for (; unit > 0; unit /= 10)
+  			out.append((char) ('0' + (value / unit) % 10));
+  	}
+
+
+  	/**
+     * Writes a nonnegative number of tenths as DecimalFormat("###.#")
+     * writes the number they stand for: the whole part, then a point and
+     * the tenths digit unless it is zero.
+     * @requires out != null && tenths >= 0
+     * @modifies out
+     * @effects appends tenths / 10 in decimal to out, followed by "." and
+     *          tenths % 10 if tenths % 10 != 0
+     * @throws IOException if appending to out fails
+     */
+  	protected static void appendTenths(Appendable out, long tenths) throws IOException {
+  		appendDecimal(out, tenths / 10);
+  		if (tenths % 10 != 0)
+  			out.append('.').append((char) ('0' + tenths % 10));
   	}
 }
@@ -3,12 +3,22 @@ package homework1;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A JPanel GUI for representing a Route. This Route is shown as a list of
  * GeoSegments. In addition, walking directions and driving directions for
  * traversing this route are shown.
  * <p>
+ * The route and its directions are computed off the Event Dispatch Thread,
+ * on a single background thread. Segments added while it is busy are
+ * queued and applied together, and the text areas are updated once, with
+ * the directions of every segment added so far; directions that would
+ * already be out of date when shown are never rendered.
+ * <p>
  * A figure showing this GUI can be found in homework assignment #1.
  */
 public class RouteFormatterGUI extends JPanel {
@@ -16,6 +26,34 @@ public class RouteFormatterGUI extends JPanel {
 	private static final long serialVersionUID = 1L;
 
 	private Route route = null;				// Route shown in this
+	private GeoPoint routeEnd = null;		// end of the last segment added
+
+	// computes the route and its directions; daemon, so it does not keep
+	// the application alive
+	private final ExecutorService directionsExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "RouteFormatterGUI directions");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// segments added but not yet given to the models, and whether a task
+	// to apply them is queued or running; guarded by pendingLock
+	private final Object pendingLock = new Object();
+	private List<GeoSegment> pendingSegments = new ArrayList<>();
+	private boolean directionsScheduled = false;
+
+	// directions of the route, updated a line at a time; both always hold
+	// the same segments. Used only by the directions thread, as are the
+	// offsets below
+	private DirectionsModel walkingDirections =
+			new DirectionsModel(new WalkingRouteFormatter(), 0);
+	private DirectionsModel drivingDirections =
+			new DirectionsModel(new DrivingRouteFormatter(), 0);
+
+	// for each text area: the length of the text last published to it, and
+	// the offset from which it differs from its model
+	private int walkingPublished = 0, walkingChangedFrom = 0;
+	private int drivingPublished = 0, drivingChangedFrom = 0;
 
 	private GeoSegmentsDialog dlgSegments;	// secondary window
 
@@ -139,30 +177,143 @@ public class RouteFormatterGUI extends JPanel {
 	 * 			defined by Route.addSegment(). In addition, updates the
 	 * 			walking direction and the driving direction of the GUI
 	 * 			with the return value of
-	 * 			RouteDirection.computeDirections(this.route,0)
+	 * 			RouteDirection.computeDirections(this.route,0), once
+	 * 			computed in the background
 	 */
 	public void addSegment(GeoSegment segment) {
 		DefaultListModel<GeoSegment> model =
 				(DefaultListModel<GeoSegment>)(this.lstSegments.getModel());
-		// TODO Write the body of this method
-		route = (route == null) ? new Route(segment) : route.addSegment(segment);
 		model.addElement(segment);
-		WalkingRouteFormatter wrf = new WalkingRouteFormatter();
-		txtWalkingDirections.setText(wrf.computeDirections(route,0));
-		DrivingRouteFormatter drf = new DrivingRouteFormatter();
-		txtDrivingDirections.setText(drf.computeDirections(route,0));
-		return;
+		routeEnd = segment.getP2();
+		synchronized (pendingLock) {
+			pendingSegments.add(segment);
+			if (directionsScheduled)
+				return;		// the queued or running task will apply it
+			directionsScheduled = true;
+		}
+		directionsExecutor.execute(this::updateDirections);
+	}
+
+	/**
+	 * Applies the pending segments to the directions, and publishes them to
+	 * the text areas once no more segments are pending. Runs on the
+	 * directions thread. If computing the directions fails, the failure is
+	 * reported on the Event Dispatch Thread, the segment that failed and
+	 * those after it are put back at the head of the pending segments, and
+	 * they are applied again with the next segment added.
+	 */
+	private void updateDirections() {
+		boolean finished = false;
+		try {
+			while (true) {
+				List<GeoSegment> segments;
+				synchronized (pendingLock) {
+					if (pendingSegments.isEmpty()) {
+						directionsScheduled = false;
+						finished = true;
+						return;
+					}
+					segments = pendingSegments;
+					pendingSegments = new ArrayList<>();
+				}
+				int applied = 0;
+				try {
+					for (GeoSegment gs : segments) {
+						applySegment(gs);
+						++applied;
+					}
+				} catch (RuntimeException e) {
+					synchronized (pendingLock) {
+						List<GeoSegment> unapplied = new ArrayList<>(segments.subList(applied, segments.size()));
+						unapplied.addAll(pendingSegments);
+						pendingSegments = unapplied;
+					}
+					throw e;
+				}
+				synchronized (pendingLock) {
+					if (!pendingSegments.isEmpty())
+						continue;	// newer segments: these directions are stale
+				}
+				publishDirections();
+			}
+		} catch (RuntimeException e) {
+			SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+					"The directions could not be computed: " + e, "Route Formatter", JOptionPane.ERROR_MESSAGE));
+		} finally {
+			// a later segment must be able to schedule the directions again
+			if (!finished) {
+				synchronized (pendingLock) {
+					directionsScheduled = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends a segment to both directions models, or to neither. Runs on
+	 * the directions thread.
+	 * @throws RuntimeException if computing the directions fails; the
+	 *         models are then as they were
+	 */
+	private void applySegment(GeoSegment gs) {
+		int walkingStart = walkingDirections.addSegment(gs).getStart();
+		int drivingStart;
+		try {
+			drivingStart = drivingDirections.addSegment(gs).getStart();
+		} catch (RuntimeException e) {
+			// take gs back out of the walking directions; the text of the
+			// rebuilt model is the text before gs, so no offset changes
+			DirectionsModel rebuilt = new DirectionsModel(new WalkingRouteFormatter(), 0);
+			Route applied = drivingDirections.getRoute();
+			if (applied != null)
+				for (GeoSegment previous : applied.geoSegmentList())
+					rebuilt.addSegment(previous);
+			walkingDirections = rebuilt;
+			throw e;
+		}
+		walkingChangedFrom = Math.min(walkingChangedFrom, walkingStart);
+		drivingChangedFrom = Math.min(drivingChangedFrom, drivingStart);
+	}
+
+	/**
+	 * Sends the changed end of both texts to the Event Dispatch Thread.
+	 * Publications are applied in order, each to the text the one before it
+	 * left. Runs on the directions thread.
+	 */
+	private void publishDirections() {
+		final Route shown = walkingDirections.getRoute();
+		final String walkingTail = walkingDirections.getText(walkingChangedFrom);
+		final int walkingStart = walkingChangedFrom, walkingEnd = walkingPublished;
+		final String drivingTail = drivingDirections.getText(drivingChangedFrom);
+		final int drivingStart = drivingChangedFrom, drivingEnd = drivingPublished;
+		walkingPublished = walkingChangedFrom = walkingDirections.getTextLength();
+		drivingPublished = drivingChangedFrom = drivingDirections.getTextLength();
+		SwingUtilities.invokeLater(() -> {
+			route = shown;
+			txtWalkingDirections.replaceRange(walkingTail, walkingStart, walkingEnd);
+			txtDrivingDirections.replaceRange(drivingTail, drivingStart, drivingEnd);
+		});
 	}
 
 	/**
 	 * Returns the route of RouteFormatter
-	 * @return corresponding route of RouteFormatter
+	 * @return corresponding route of RouteFormatter, as shown by the
+	 * 		   directions; it may not yet have the segments added last
 	 */
 	public Route getRoute(){
 		if(route == null) return null;
 		return new Route(route);
 	}
 
+	/**
+	 * Returns the end of the route, including the segments whose
+	 * directions are still being computed.
+	 * @return the p2 of the segment added last, or null if none was added
+	 */
+	public GeoPoint getRouteEnd(){
+		return routeEnd;
+	}
+
 //    public static void main(String[] args) {
 //		JFrame frame = new JFrame("Route Formatter GUI");
 //		Container contentPane = frame.getContentPane();
@@ -0,0 +1,84 @@
+package homework1;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+
+public class RouteFormatterTest {
+
+	private Route longRoute;			// Hankin Road to Me'ir Ya'ari, several features
+
+
+	public RouteFormatterTest() {
+		longRoute = ExampleGeoSegments.longRoute();
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("RouteFormatter");
+		boolean streamsMatch = longRoute != null;
+		for (RouteFormatter formatter : new RouteFormatter[] { new WalkingRouteFormatter(), new DrivingRouteFormatter() }) {
+			if (longRoute == null)
+				break;
+			StringBuilder concatenated = new StringBuilder();
+			double heading = 90;
+			for (GeoFeature gf : longRoute.geoFeatureList()) {
+				concatenated.append(formatter.computeLine(gf, heading));
+				heading = gf.getEndHeading();
+			}
+			StringBuilder written = new StringBuilder();
+			try {
+				formatter.computeDirections(longRoute, 90, written);
+			} catch (IOException e) {
+				streamsMatch = false;
+			}
+			streamsMatch &= formatter.computeDirections(longRoute, 90).equals(concatenated.toString())
+				&& written.toString().equals(concatenated.toString())
+				&& String.join("", formatter.lines(longRoute, 90).toArray(String[]::new)).equals(concatenated.toString())
+				&& formatter.lines(longRoute, 90).count() == longRoute.geoFeatureList().size();
+		}
+		show("Written, streamed and concatenated directions are equal", streamsMatch);
+
+		show("Turn");
+		show("Turns keep their phrases and thresholds", Turn.of(0, 9.9) == Turn.CONTINUE
+			&& Turn.of(350, 10) == Turn.LEFT && Turn.of(0, 180) == Turn.U_TURN && Turn.of(0, 179.5) == Turn.LEFT
+			&& Turn.RIGHT.phrase().equals("Turn right  ")
+			&& new WalkingRouteFormatter().getTurnString(0, 90) == Turn.RIGHT.phrase());
+
+		show("DrivingRouteFormatter");
+		DecimalFormat tenths = new DecimalFormat("###.#");
+		boolean tenthsMatch = true;
+		for (double km : new double[] { 0, 0.04, 0.05, 0.25, 0.35, 1.05, 2.5, 12345.65, 0.1 + 0.2 })
+			try {
+				StringBuilder written = new StringBuilder();
+				RouteFormatter.appendTenths(written, DrivingRouteFormatter.drivingTenths(km));
+				tenthsMatch &= written.toString().equals(tenths.format(km));
+			} catch (IOException e) {
+				tenthsMatch = false;
+			}
+		show("Driving lengths are rounded as DecimalFormat rounds them", tenthsMatch);
+
+		show("DirectionsPipeline");
+		RouteFormatter[] modes = { new WalkingRouteFormatter(), new DrivingRouteFormatter(),
+			ExampleGeoSegments.plainFormatter() };
+		String[] rendered = new DirectionsPipeline(modes).computeDirections(longRoute, 90);
+		boolean modesMatch = rendered.length == modes.length;
+		for (int i = 0; modesMatch && i < modes.length; ++i)
+			modesMatch = rendered[i].equals(modes[i].computeDirections(longRoute, 90));
+		show("A pipeline renders every mode as its formatter does", modesMatch);
+	}
+}
@@ -0,0 +1,120 @@
+package homework1;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A RouteStore keeps a single canonical instance of every distinct Route and
+ * GeoFeature handed to it, so that an archive holding the same route many
+ * times holds it in memory only once. RouteStores are thread-safe.
+ * <p>
+ * Routes and GeoFeatures are immutable and compare by content, and their
+ * hash codes are computed from their content when they are built. Interning
+ * an instance therefore costs one hash lookup and, when an equal instance
+ * is already stored, one content comparison.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   routes : set      // the canonical Routes held by this store
+ *   features : set    // the canonical GeoFeatures held by this store
+ * </pre>
+ **/
+public class RouteStore {
+
+	private final ConcurrentMap<Route, Route> routes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<GeoFeature, GeoFeature> features = new ConcurrentHashMap<>();
+	private final LongAdder route_hits = new LongAdder();
+	private final LongAdder feature_hits = new LongAdder();
+
+	// Abs. Function for every RouteStore s:
+	// s.routes = keySet(s.routes), s.features = keySet(s.features)
+
+	// Rep. Invariant for every RouteStore s:
+	// for all entries (k, v) of s.routes and s.features: k == v
+
+	/**
+	 * Returns the canonical instance of a Route.
+	 * @requires route != null
+	 * @modifies this
+	 * @effects if no Route equal to route is in this.routes, adds route to
+	 *          this.routes
+	 * @return the Route r in this.routes such that r.equals(route)
+	 **/
+	public Route intern(Route route) {
+		Route canonical = routes.putIfAbsent(route, route);
+		if (canonical == null)
+			return route;
+		route_hits.increment();
+		return canonical;
+	}
+
+	/**
+	 * Returns the canonical instance of a GeoFeature.
+	 * @requires feature != null
+	 * @modifies this
+	 * @effects if no GeoFeature equal to feature is in this.features, adds
+	 *          feature to this.features
+	 * @return the GeoFeature f in this.features such that f.equals(feature)
+	 **/
+	public GeoFeature intern(GeoFeature feature) {
+		GeoFeature canonical = features.putIfAbsent(feature, feature);
+		if (canonical == null)
+			return feature;
+		feature_hits.increment();
+		return canonical;
+	}
+
+	/**
+	 * Returns whether an equal Route is stored.
+	 * @requires route != null
+	 * @return some r in this.routes satisfies r.equals(route)
+	 **/
+	public boolean contains(Route route) {
+		return routes.containsKey(route);
+	}
+
+	/**
+	 * Returns the number of distinct Routes stored.
+	 * @return the size of this.routes
+	 **/
+	public int routeCount() {
+		return routes.size();
+	}
+
+	/**
+	 * Returns the number of distinct GeoFeatures stored.
+	 * @return the size of this.features
+	 **/
+	public int featureCount() {
+		return features.size();
+	}
+
+	/**
+	 * Returns how many calls to intern(Route) found an equal Route already
+	 * stored.
+	 * @return the number of duplicate Routes interned so far
+	 **/
+	public long duplicateRoutes() {
+		return route_hits.sum();
+	}
+
+	/**
+	 * Returns how many calls to intern(GeoFeature) found an equal GeoFeature
+	 * already stored.
+	 * @return the number of duplicate GeoFeatures interned so far
+	 **/
+	public long duplicateFeatures() {
+		return feature_hits.sum();
+	}
+
+	/**
+	 * Removes every Route and GeoFeature from this store.
+	 * @modifies this
+	 * @effects this.routes = {} && this.features = {}
+	 **/
+	public void clear() {
+		routes.clear();
+		features.clear();
+	}
+}
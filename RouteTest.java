@@ -0,0 +1,173 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+public class RouteTest {
+
+	private static final double tolerance = 0.01;
+
+	private GeoPoint gpZivSquare;
+	private GeoPoint gpEast;			// 1 km east to gpZivSquare
+	private GeoPoint gpEast2;			// 2 km east to gpZivSquare
+	private GeoPoint gpNorth;			// 1 km north to gpEast2
+
+	private GeoSegment gsEast;
+	private GeoSegment gsEast2;
+	private GeoSegment gsNorth;
+	private GeoSegment gsBack;			// back to gpEast2, named "East" again
+
+
+	public RouteTest() {
+		gpZivSquare = new GeoPoint(32783098,35014528);
+		gpEast = new GeoPoint(32783098,35025202);
+		gpEast2 = new GeoPoint(32783098,35035876);
+		gpNorth = new GeoPoint(32792115,35035876);
+
+		gsEast = new GeoSegment("East", gpZivSquare, gpEast);
+		gsEast2 = new GeoSegment("East", gpEast, gpEast2);
+		gsNorth = new GeoSegment("North", gpEast2, gpNorth);
+		gsBack = new GeoSegment("East", gpNorth, gpEast2);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	int count(Iterator<?> it) {
+		int n = 0;
+		while (it.hasNext()) {
+			it.next();
+			++n;
+		}
+		return n;
+	}
+
+
+	public void test() {
+		Route r1 = new Route(gsEast);
+		Route r2 = r1.addSegment(gsEast2);
+		Route r3 = r2.addSegment(gsNorth);
+		Route r4 = r3.addSegment(gsBack);
+
+		show("getLength()");
+		show("Single segment route is 1 km", same(r1.getLength(), 1.0));
+		show("Four segment route is 4 km", same(r4.getLength(), 4.0));
+		show("Lengths are summed in whole millimeters",
+			r4.getLengthMillimeters() == gsEast.getLengthMillimeters() + gsEast2.getLengthMillimeters()
+				+ gsNorth.getLengthMillimeters() + gsBack.getLengthMillimeters()
+			&& r4.getLength() == Lengths.toKilometers(r4.getLengthMillimeters()));
+		show("Length does not depend on how the route was built",
+			Route.of(Arrays.asList(gsEast, gsEast2, gsNorth, gsBack)).getLength() == r4.getLength());
+
+		show("getGeoFeatures()");
+		show("Same name segments share a feature", count(r2.getGeoFeatures()) == 1);
+		show("New name starts a new feature", count(r3.getGeoFeatures()) == 2);
+		show("Name of a non-consecutive feature starts a new feature",
+			count(r4.getGeoFeatures()) == 3);
+
+		show("addSegment()");
+		show("Appending does not modify the original route",
+			count(r1.getGeoSegments()) == 1 && r1.getEnd().equals(gpEast));
+		Route branch = r2.addSegment(new GeoSegment("South", gpEast2, gpZivSquare));
+		show("Branching from a shared route does not modify its sibling",
+			r3.getEnd().equals(gpNorth) && branch.getEnd().equals(gpZivSquare));
+		show("Routes built from the same segments are equal",
+			r3.equals(new Route(gsEast).addSegment(gsEast2).addSegment(gsNorth)));
+		show("Copy is equal to original", r4.equals(new Route(r4)));
+		show("Different routes are not equal", !r3.equals(branch));
+
+		GeoSegment gsWest = new GeoSegment("West", gpEast, gpZivSquare);
+		Route longRoute = new Route(gsEast);
+		for (int i = 0; i < 10000; ++i)
+			longRoute = longRoute.addSegment((i % 2 == 0) ? gsWest : gsEast);
+		show("Long route keeps every segment", count(longRoute.getGeoSegments()) == 10001);
+
+		show("of()");
+		show("Route.of() is equal to appending one by one",
+			r4.equals(Route.of(Arrays.asList(gsEast, gsEast2, gsNorth, gsBack))));
+		show("Route.of() keeps the length", same(Route.of(Arrays.asList(gsEast, gsEast2)).getLength(), 2.0));
+		show("collector() is equal to Route.of()",
+			r4.equals(Stream.of(gsEast, gsEast2, gsNorth, gsBack).collect(Route.collector())));
+		boolean thrown = false;
+		try {
+			Route.of(Arrays.asList(gsEast, gsNorth));
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Route.of() rejects disconnected segments", thrown);
+		Route built = Route.of(Arrays.asList(gsEast, gsEast2));
+		show("Appending to a built route works",
+			built.addSegment(gsNorth).equals(r3) && count(built.getGeoSegments()) == 2);
+
+		show("geoFeatureList() & geoSegmentList()");
+		show("Feature view has every feature", r4.geoFeatureList().size() == 3
+			&& r4.geoFeatureList().get(2).getName().equals("East"));
+		show("Segment view has every segment", r4.geoSegmentList().size() == 4
+			&& r4.geoSegmentList().get(3).equals(gsBack));
+		show("Views report their size and immutability",
+			r4.geoSegmentList().spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.IMMUTABLE)
+			&& r4.geoFeatureList().spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.IMMUTABLE));
+		thrown = false;
+		try {
+			r4.geoSegmentList().add(gsEast);
+		} catch (UnsupportedOperationException e) {
+			thrown = true;
+		}
+		show("Views are unmodifiable", thrown);
+
+		show("hashCode()");
+		Route r4again = new Route(gsEast).addSegment(gsEast2).addSegment(gsNorth).addSegment(gsBack);
+		show(".equals() routes must have the same .hashCode()", r4.hashCode() == r4again.hashCode());
+		show("Built and appended routes have the same .hashCode()",
+			r4.hashCode() == Route.of(Arrays.asList(gsEast, gsEast2, gsNorth, gsBack)).hashCode());
+		show("Different routes have different .hashCode()", r3.hashCode() != branch.hashCode());
+
+		show("RouteStore");
+		RouteStore store = new RouteStore();
+		store.intern(r4);
+		show("Interning an equal route returns the stored one", store.intern(r4again) == r4);
+		show("Interning a new route stores it", store.intern(r3) == r3 && store.routeCount() == 2);
+		show("Duplicates are counted", store.duplicateRoutes() == 1);
+
+		show("DirectionsModel");
+		DirectionsModel model = new DirectionsModel(new DrivingRouteFormatter(), 0);
+		StringBuilder applied = new StringBuilder();
+		boolean textsMatch = true;
+		DirectionsModel.Delta[] deltas = new DirectionsModel.Delta[4];
+		GeoSegment[] added = { gsEast, gsEast2, gsNorth, gsBack };
+		for (int i = 0; i < added.length; ++i) {
+			deltas[i] = model.addSegment(added[i]);
+			applied.replace(deltas[i].getStart(), deltas[i].getEnd(), deltas[i].getLine());
+			textsMatch &= applied.toString().equals(new DrivingRouteFormatter().computeDirections(model.getRoute(), 0))
+				&& model.getText().equals(applied.toString()) && model.getTextLength() == applied.length();
+		}
+		show("Applying the deltas gives the directions of the route", textsMatch && model.getRoute().equals(r4));
+		show("A segment of the same name replaces the last line", !deltas[1].isAppended()
+			&& deltas[1].getIndex() == 0 && deltas[1].getStart() == 0);
+		show("A segment of a new name adds a line", deltas[2].isAppended() && deltas[3].isAppended()
+			&& model.getLines().size() == 3);
+		show("The text from a changed line is the end of the directions",
+			model.getText(deltas[3].getStart()).equals(model.getText().substring(deltas[3].getStart()))
+			&& model.getText(0).equals(model.getText()) && model.getText(model.getTextLength()).isEmpty());
+	}
+}
@@ -0,0 +1,234 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A Router finds shortest Routes between points of a RoadNetwork. Routers
+ * are thread-safe.
+ * <p>
+ * Queries run A* search over the network, guided by the straight-line
+ * distance to the destination as computed by the metric of the network.
+ * Since every edge is a straight segment, no path can be shorter than that
+ * distance, so the first time the destination is settled its distance is
+ * final. (With GeoMetric.EQUIRECTANGULAR this holds only to within the
+ * error of that metric.) Path lengths are summed in whole millimeters, the
+ * lengths of the edges rounded up, so they are exact and never shorter than
+ * the straight line.
+ * <p>
+ * Each thread gets its own search state (distance, parent, predecessor
+ * and heap arrays sized to the network) the first time it queries a
+ * Router, and reuses it for every later query. Entries left over from an
+ * earlier query are told apart by a per-query stamp, so starting a query
+ * does not clear the arrays and a query allocates only the Route it
+ * returns.
+ **/
+public class Router {
+
+	/**
+	 * The heuristic, in millimeters, is scaled down by this factor so that
+	 * floating-point error in the metric can never make it overestimate.
+	 * Edge costs are the metric distances rounded up to whole millimeters,
+	 * so the only error to cover is that of computing one distance in
+	 * doubles, a few ulps, or about 1e-15 relative; 1e-9 leaves a wide
+	 * margin and costs the search nothing measurable.
+	 **/
+	private static final double HEURISTIC_SCALE = (1 - 1e-9) * Lengths.MILLIMETERS_PER_KILOMETER;
+
+	private final RoadNetwork network;
+	private final ThreadLocal<SearchState> states;
+
+	// Abs. Function for every Router r:
+	// r finds shortest paths in r.network
+
+	// Rep. Invariant for every Router r:
+	// r.network != null && r.states != null
+
+	/**
+	 * The reusable state of one search, owned by a single thread. Distances
+	 * are in millimeters: sums of edgeMillimeters(), which a double holds
+	 * exactly.
+	 **/
+	static final class SearchState {
+		final IndexedMinHeap heap;
+		private final double[] distances;
+		private final int[] parents;	// edge into each node on its best path
+		private final int[] predecessors;	// node that edge leaves
+		private final int[] stamps;		// query that set distances/parents
+		private int stamp;
+		private int[] path = new int[16];
+
+		SearchState(int nodes) {
+			heap = new IndexedMinHeap(nodes);
+			distances = new double[nodes];
+			parents = new int[nodes];
+			predecessors = new int[nodes];
+			stamps = new int[nodes];
+		}
+
+		/**
+		 * Forgets the results of the previous search. Takes O(1) amortized.
+		 **/
+		void reset() {
+			heap.clear();
+			if (++stamp == 0) {
+				Arrays.fill(stamps, 0);
+				stamp = 1;
+			}
+		}
+
+		/**
+		 * Returns the distance of a node found by this search.
+		 * @return the distance set for node, or +infinity if none was set
+		 **/
+		double distance(int node) {
+			return (stamps[node] == stamp) ? distances[node] : Double.POSITIVE_INFINITY;
+		}
+
+		/**
+		 * Returns the edge into a node on its best path found by this search.
+		 * @requires distance(node) < +infinity
+		 * @return the edge into node, or -1 for the source
+		 **/
+		int parent(int node) {
+			return parents[node];
+		}
+
+		/**
+		 * Returns the node the edge into a node leaves.
+		 * @requires distance(node) < +infinity && parent(node) >= 0 && the
+		 *           parent of node was set with its predecessor
+		 * @return the source of parent(node)
+		 **/
+		int predecessor(int node) {
+			return predecessors[node];
+		}
+
+		void set(int node, double distance, int parent) {
+			stamps[node] = stamp;
+			distances[node] = distance;
+			parents[node] = parent;
+		}
+
+		void set(int node, double distance, int parent, int predecessor) {
+			set(node, distance, parent);
+			predecessors[node] = predecessor;
+		}
+	}
+
+	/**
+	 * Constructs a Router over a network.
+	 * @requires network != null
+	 * @effects constructs a new Router over network
+	 **/
+	public Router(RoadNetwork network) {
+		this.network = network;
+		this.states = ThreadLocal.withInitial(() -> new SearchState(network.nodeCount()));
+	}
+
+	/**
+	 * Returns the network this Router searches.
+	 * @return the network this Router searches
+	 **/
+	public RoadNetwork getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Finds a shortest Route between two nodes of the network.
+	 * @requires from != null && to != null
+	 * @return a Route r with r.start = from, r.end = to, made of edges of the
+	 *         network, such that no such Route is shorter; or null if from or
+	 *         to is not a node of the network, from equals to, or to can not
+	 *         be reached from from
+	 **/
+	public Route shortestRoute(GeoPoint from, GeoPoint to) {
+		int source = network.nodeOf(from), target = network.nodeOf(to);
+		if (source < 0 || target < 0 || source == target)
+			return null;
+		SearchState state = states.get();
+		if (!search(source, target, state))
+			return null;
+		return toRoute(target, state);
+	}
+
+	/**
+	 * Computes the length of a shortest Route between two nodes of the
+	 * network.
+	 * @requires from != null && to != null
+	 * @return the length, in kilometers, of shortestRoute(from, to); 0 if
+	 *         from equals to; or +infinity if from or to is not a node of the
+	 *         network or to can not be reached from from
+	 **/
+	public double shortestDistance(GeoPoint from, GeoPoint to) {
+		int source = network.nodeOf(from), target = network.nodeOf(to);
+		if (source < 0 || target < 0)
+			return Double.POSITIVE_INFINITY;
+		if (source == target)
+			return 0;
+		SearchState state = states.get();
+		return search(source, target, state) ? state.distance(target) / Lengths.MILLIMETERS_PER_KILOMETER
+				: Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the search state of the calling thread.
+	 * @return the SearchState owned by the calling thread
+	 **/
+	SearchState state() {
+		return states.get();
+	}
+
+	/**
+	 * Runs A* from source until target is settled.
+	 * @requires 0 <= source, target < network.nodeCount()
+	 * @modifies state
+	 * @effects state holds the distances and parents found by the search
+	 * @return true iff target is reachable from source
+	 **/
+	private boolean search(int source, int target, SearchState state) {
+		state.reset();
+		IndexedMinHeap heap = state.heap;
+		GeoMetric metric = network.getMetric();
+		int target_lat = network.nodeLatitude(target), target_lon = network.nodeLongitude(target);
+		state.set(source, 0, -1);
+		heap.insertOrDecrease(source, 0);
+		while (!heap.isEmpty()) {
+			int node = heap.poll();
+			if (node == target)
+				return true;
+			double distance = state.distance(node);
+			for (int e = network.firstEdge(node), end = network.endEdge(node); e < end; ++e) {
+				int next = network.edgeTarget(e);
+				double candidate = distance + network.edgeMillimeters(e);
+				if (candidate < state.distance(next)) {
+					state.set(next, candidate, e, node);
+					double estimate = HEURISTIC_SCALE * metric.distance(network.nodeLatitude(next),
+							network.nodeLongitude(next), target_lat, target_lon);
+					heap.insertOrDecrease(next, candidate + estimate);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Builds the Route found by the last search of state.
+	 * @requires state.distance(target) < +infinity
+	 * @return the Route along the parent edges from the search source to
+	 *         target
+	 **/
+	Route toRoute(int target, SearchState state) {
+		// the path holds (predecessor, edge) pairs, from target back
+		int count = 0;
+		for (int node = target, e; (e = state.parent(node)) >= 0; node = state.predecessor(node)) {
+			if (count == state.path.length)
+				state.path = Arrays.copyOf(state.path, count * 2);
+			state.path[count++] = state.predecessor(node);
+			state.path[count++] = e;
+		}
+		RouteBuilder builder = new RouteBuilder(count / 2);
+		for (int i = count - 2; i >= 0; i -= 2)
+			builder.add(network.edgeSegment(state.path[i], state.path[i + 1]));
+		return builder.build();
+	}
+}
@@ -0,0 +1,483 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A SpatialIndex finds the edges of a RoadNetwork near arbitrary points,
+ * for snapping a position that is not a node onto the closest road.
+ * SpatialIndices are immutable and thread-safe.
+ * <p>
+ * The index is a uniform grid over the bounding box of the network, keyed
+ * on the integer millionths of degrees of GeoPoint. Cells are sized for
+ * about two edges each, and every edge is listed in each cell its bounding
+ * box overlaps. The lists are built with two counting passes into one
+ * int array, so bulk loading is linear and allocates a fixed number of
+ * arrays.
+ * <p>
+ * Queries search rings of cells outward from the cell of the query point
+ * until no unvisited cell can hold anything closer. Results are written
+ * into a Match (or an array of them) owned by the caller, and each thread
+ * reuses its own scratch state, so queries do not allocate. Distances are
+ * measured on a plane, scaled by the metric of the network at the middle
+ * latitude of the network (for TECHNION, the flat projection of
+ * <tt>GeoPoint.distanceTo</tt>).
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   network : RoadNetwork   // the network whose edges are indexed
+ * </pre>
+ **/
+public class SpatialIndex {
+
+	private static final int EDGES_PER_CELL = 2;
+
+	/**
+	 * The edge closest to a query point, and where on it the point snaps
+	 * to. Matches are mutable, are filled in by the queries of a
+	 * SpatialIndex, and are meant to be reused. A Match holds only the id
+	 * of its edge; getSegment() builds the GeoSegment when it is asked for.
+	 **/
+	public static final class Match {
+		private int edge = -1;
+		private int latitude, longitude;
+		private double offset, distance;
+
+		/**
+		 * Constructs an empty Match.
+		 * @effects constructs a new Match m with m.getEdge() = -1
+		 **/
+		public Match() {
+		}
+
+		/**
+		 * Returns the matched edge.
+		 * @return the id of the matched edge, or -1 if nothing was matched
+		 **/
+		public int getEdge() {
+			return edge;
+		}
+
+		/**
+		 * Returns the matched GeoSegment.
+		 * @requires network is the network of the SpatialIndex that filled
+		 *           this Match
+		 * @return a new GeoSegment of edge getEdge() of network, or null if
+		 *         nothing was matched
+		 **/
+		public GeoSegment getSegment(RoadNetwork network) {
+			return (edge == -1) ? null : network.edgeSegment(edge);
+		}
+
+		/**
+		 * Returns the latitude of the point on the segment closest to the
+		 * query point.
+		 * @return the latitude, in millionths of degrees
+		 **/
+		public int getLatitude() {
+			return latitude;
+		}
+
+		/**
+		 * Returns the longitude of the point on the segment closest to the
+		 * query point.
+		 * @return the longitude, in millionths of degrees
+		 **/
+		public int getLongitude() {
+			return longitude;
+		}
+
+		/**
+		 * Returns the point on the segment closest to the query point.
+		 * @requires getEdge() != -1
+		 * @return a new GeoPoint at (getLatitude(), getLongitude())
+		 **/
+		public GeoPoint getProjectedPoint() {
+			return new GeoPoint(latitude, longitude);
+		}
+
+		/**
+		 * Returns how far along the segment the projected point is.
+		 * @return the distance, in kilometers, from the segment's p1 to the
+		 *         projected point
+		 **/
+		public double getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Returns how far the query point is from the segment.
+		 * @return the distance, in kilometers, from the query point to the
+		 *         projected point
+		 **/
+		public double getDistance() {
+			return distance;
+		}
+
+		void clear() {
+			edge = -1;
+		}
+	}
+
+	/**
+	 * The reusable state of the queries of one thread.
+	 **/
+	private static final class Scratch {
+		final int[] stamps;			// query that last visited each edge
+		int stamp;
+		int[] heap = new int[8];	// k best edges, a max-heap by distance
+		double[] keys = new double[8];
+
+		Scratch(int edges) {
+			stamps = new int[edges];
+		}
+
+		void reset() {
+			if (++stamp == 0) {
+				Arrays.fill(stamps, 0);
+				stamp = 1;
+			}
+		}
+
+		boolean visit(int edge) {
+			if (stamps[edge] == stamp)
+				return false;
+			stamps[edge] = stamp;
+			return true;
+		}
+	}
+
+	private final RoadNetwork network;
+	private final int[] p1_latitudes, p1_longitudes, p2_latitudes, p2_longitudes;
+	private final int min_latitude, min_longitude;
+	private final double km_per_latitude_unit, km_per_longitude_unit;
+	private final int cell_height, cell_width;		// in millionths of degrees
+	private final int rows, columns;
+	private final int[] cell_offsets;
+	private final int[] cell_edges;
+	private final ThreadLocal<Scratch> scratches;
+
+	// Abs. Function for every SpatialIndex s:
+	// s indexes the edges of s.network
+
+	// Rep. Invariant for every SpatialIndex s:
+	// s.cell_height >= 1 && s.cell_width >= 1 && s.rows >= 1 && s.columns >= 1 &&
+	// s.cell_offsets.length == s.rows * s.columns + 1 &&
+	// edge e is in cell_edges[cell_offsets[c]..cell_offsets[c+1]) iff the
+	//   bounding box of e overlaps cell c, where cell c covers the latitudes
+	//   [min_latitude + (c / columns) * cell_height, ... + cell_height) and
+	//   the longitudes [min_longitude + (c % columns) * cell_width, ... + cell_width)
+
+	/**
+	 * Builds an index over the edges of a network.
+	 * @requires network != null
+	 * @effects constructs a new SpatialIndex s with s.network = network
+	 **/
+	public SpatialIndex(RoadNetwork network) {
+		this.network = network;
+		int m = network.edgeCount();
+		p1_latitudes = new int[m];
+		p1_longitudes = new int[m];
+		p2_latitudes = new int[m];
+		p2_longitudes = new int[m];
+		int min_lat = Integer.MAX_VALUE, min_lon = Integer.MAX_VALUE;
+		int max_lat = Integer.MIN_VALUE, max_lon = Integer.MIN_VALUE;
+		for (int node = 0; node < network.nodeCount(); ++node) {
+			int lat = network.nodeLatitude(node), lon = network.nodeLongitude(node);
+			min_lat = Math.min(min_lat, lat);
+			max_lat = Math.max(max_lat, lat);
+			min_lon = Math.min(min_lon, lon);
+			max_lon = Math.max(max_lon, lon);
+			for (int e = network.firstEdge(node); e < network.endEdge(node); ++e) {
+				int target = network.edgeTarget(e);
+				p1_latitudes[e] = lat;
+				p1_longitudes[e] = lon;
+				p2_latitudes[e] = network.nodeLatitude(target);
+				p2_longitudes[e] = network.nodeLongitude(target);
+			}
+		}
+		if (network.nodeCount() == 0)
+			min_lat = max_lat = min_lon = max_lon = 0;
+		min_latitude = min_lat;
+		min_longitude = min_lon;
+		GeoMetric metric = network.getMetric();
+		int middle = (int) (((long) min_lat + max_lat) >> 1);
+		km_per_latitude_unit = metric.kmPerLatitudeUnit(middle);
+		km_per_longitude_unit = metric.kmPerLongitudeUnit(middle);
+
+		// square cells (in kilometers), about EDGES_PER_CELL edges each
+		double height_km = ((long) max_lat - min_lat + 1) * km_per_latitude_unit;
+		double width_km = ((long) max_lon - min_lon + 1) * km_per_longitude_unit;
+		double cell_km = Math.sqrt(height_km * width_km * EDGES_PER_CELL / Math.max(1, m));
+		cell_height = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, cell_km / km_per_latitude_unit));
+		cell_width = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, cell_km / km_per_longitude_unit));
+		rows = (int) (((long) max_lat - min_lat) / cell_height + 1);
+		columns = (int) (((long) max_lon - min_lon) / cell_width + 1);
+
+		// counting sort of the (cell, edge) pairs by cell
+		cell_offsets = new int[Math.multiplyExact(rows, columns) + 1];
+		for (int e = 0; e < m; ++e) {
+			int r0 = row(Math.min(p1_latitudes[e], p2_latitudes[e]));
+			int r1 = row(Math.max(p1_latitudes[e], p2_latitudes[e]));
+			int c0 = column(Math.min(p1_longitudes[e], p2_longitudes[e]));
+			int c1 = column(Math.max(p1_longitudes[e], p2_longitudes[e]));
+			for (int r = r0; r <= r1; ++r)
+				for (int c = c0; c <= c1; ++c)
+					++cell_offsets[r * columns + c + 1];
+		}
+		for (int c = 0; c < rows * columns; ++c)
+			cell_offsets[c + 1] += cell_offsets[c];
+		cell_edges = new int[cell_offsets[rows * columns]];
+		int[] next = Arrays.copyOf(cell_offsets, rows * columns);
+		for (int e = 0; e < m; ++e) {
+			int r0 = row(Math.min(p1_latitudes[e], p2_latitudes[e]));
+			int r1 = row(Math.max(p1_latitudes[e], p2_latitudes[e]));
+			int c0 = column(Math.min(p1_longitudes[e], p2_longitudes[e]));
+			int c1 = column(Math.max(p1_longitudes[e], p2_longitudes[e]));
+			for (int r = r0; r <= r1; ++r)
+				for (int c = c0; c <= c1; ++c)
+					cell_edges[next[r * columns + c]++] = e;
+		}
+		scratches = ThreadLocal.withInitial(() -> new Scratch(m));
+	}
+
+	/**
+	 * Returns the network whose edges are indexed.
+	 * @return this.network
+	 **/
+	public RoadNetwork getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Finds the edge closest to a point.
+	 * @requires gp != null && result != null
+	 * @modifies result
+	 * @effects fills result with the edge of this.network closest to gp and
+	 *          the point on it closest to gp; if the network has no edges,
+	 *          result.getEdge() = -1
+	 * @return true iff an edge was found
+	 **/
+	public boolean nearestSegment(GeoPoint gp, Match result) {
+		return nearestSegments(gp.getLatitude(), gp.getLongitude(), 1, result, null) == 1;
+	}
+
+	/**
+	 * Finds the k edges closest to a point.
+	 * @requires gp != null && results != null && k <= results.length &&
+	 *           results does not contain null
+	 * @modifies results
+	 * @effects fills results[0..n) with the n = min(k, number of edges)
+	 *          edges of this.network closest to gp, closest first
+	 * @return n
+	 **/
+	public int nearestSegments(GeoPoint gp, int k, Match[] results) {
+		return nearestSegments(gp.getLatitude(), gp.getLongitude(), k, null, results);
+	}
+
+	/**
+	 * Finds the edges that pass through a box.
+	 * @requires edges != null
+	 * @modifies edges
+	 * @effects stores in edges the ids of the edges of this.network that
+	 *          intersect the box [minLatitude, maxLatitude] x
+	 *          [minLongitude, maxLongitude] (given in millionths of
+	 *          degrees), as many as fit, in no particular order
+	 * @return the number of such edges, which may be more than edges.length
+	 **/
+	public int segmentsWithin(int minLatitude, int minLongitude, int maxLatitude, int maxLongitude,
+							  int[] edges) {
+		if (minLatitude > maxLatitude || minLongitude > maxLongitude || cell_edges.length == 0)
+			return 0;
+		Scratch scratch = scratches.get();
+		scratch.reset();
+		int count = 0;
+		int r0 = row(minLatitude), r1 = row(maxLatitude);
+		int c0 = column(minLongitude), c1 = column(maxLongitude);
+		for (int r = r0; r <= r1; ++r) {
+			for (int c = c0; c <= c1; ++c) {
+				int cell = r * columns + c;
+				for (int i = cell_offsets[cell]; i < cell_offsets[cell + 1]; ++i) {
+					int e = cell_edges[i];
+					if (scratch.visit(e) && intersects(e, minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+						if (count < edges.length)
+							edges[count] = e;
+						++count;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the k nearest edges and writes them to single (if k == 1 and
+	 * it is not null) or to results.
+	 **/
+	private int nearestSegments(int latitude, int longitude, int k, Match single, Match[] results) {
+		if (single != null)
+			single.clear();
+		if (cell_edges.length == 0 || k <= 0)
+			return 0;
+		Scratch scratch = scratches.get();
+		scratch.reset();
+		if (scratch.heap.length < k) {
+			scratch.heap = new int[k];
+			scratch.keys = new double[k];
+		}
+		int[] heap = scratch.heap;
+		double[] keys = scratch.keys;
+		int size = 0;
+		double x = longitude * km_per_longitude_unit, y = latitude * km_per_latitude_unit;
+		int row = row(latitude), column = column(longitude);
+		for (int ring = 0; ; ++ring) {
+			int r0 = row - ring, r1 = row + ring, c0 = column - ring, c1 = column + ring;
+			if (r0 < 0 && r1 >= rows && c0 < 0 && c1 >= columns)
+				break;
+			// nothing outside the block searched so far is closer than its border
+			if (ring > 0 && size == k && gap(x, y, r0 + 1, r1 - 1, c0 + 1, c1 - 1) > keys[0])
+				break;
+			for (int r = Math.max(0, r0); r <= Math.min(rows - 1, r1); ++r) {
+				boolean full_row = (r == r0 || r == r1);
+				for (int c = Math.max(0, c0); c <= Math.min(columns - 1, c1); ++c) {
+					if (!full_row && c != c0 && c != c1)
+						continue;
+					int cell = r * columns + c;
+					for (int i = cell_offsets[cell]; i < cell_offsets[cell + 1]; ++i) {
+						int e = cell_edges[i];
+						if (!scratch.visit(e))
+							continue;
+						double d = distanceTo(e, x, y);
+						if (size < k) {
+							siftUp(heap, keys, size++, e, d);
+						} else if (d < keys[0]) {
+							siftDown(heap, keys, size, 0, e, d);
+						}
+					}
+				}
+			}
+		}
+		// take the edges out farthest first
+		for (int n = size; n > 0; --n) {
+			int e = heap[0];
+			double d = keys[0];
+			if (n > 1)
+				siftDown(heap, keys, n - 1, 0, heap[n - 1], keys[n - 1]);
+			Match match = (single != null) ? single : results[n - 1];
+			project(e, x, y, d, match);
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the distance from (x, y) to the nearest point that is in the
+	 * grid but not in the block of cells [r0, r1] x [c0, c1].
+	 **/
+	private double gap(double x, double y, int r0, int r1, int c0, int c1) {
+		double gap = Double.POSITIVE_INFINITY;
+		if (r0 > 0)
+			gap = Math.min(gap, y - ((long) min_latitude + (long) r0 * cell_height) * km_per_latitude_unit);
+		if (r1 < rows - 1)
+			gap = Math.min(gap, ((long) min_latitude + (long) (r1 + 1) * cell_height) * km_per_latitude_unit - y);
+		if (c0 > 0)
+			gap = Math.min(gap, x - ((long) min_longitude + (long) c0 * cell_width) * km_per_longitude_unit);
+		if (c1 < columns - 1)
+			gap = Math.min(gap, ((long) min_longitude + (long) (c1 + 1) * cell_width) * km_per_longitude_unit - x);
+		return gap;
+	}
+
+	/**
+	 * Returns the distance, in kilometers, from (x, y) to edge e.
+	 **/
+	private double distanceTo(int e, double x, double y) {
+		double x1 = p1_longitudes[e] * km_per_longitude_unit, y1 = p1_latitudes[e] * km_per_latitude_unit;
+		double dx = p2_longitudes[e] * km_per_longitude_unit - x1;
+		double dy = p2_latitudes[e] * km_per_latitude_unit - y1;
+		double t = fraction(x - x1, y - y1, dx, dy);
+		double ex = x1 + t * dx - x, ey = y1 + t * dy - y;
+		return Math.sqrt(ex * ex + ey * ey);
+	}
+
+	/**
+	 * Fills match with edge e and the point on it closest to (x, y).
+	 **/
+	private void project(int e, double x, double y, double distance, Match match) {
+		double x1 = p1_longitudes[e] * km_per_longitude_unit, y1 = p1_latitudes[e] * km_per_latitude_unit;
+		double dx = p2_longitudes[e] * km_per_longitude_unit - x1;
+		double dy = p2_latitudes[e] * km_per_latitude_unit - y1;
+		double t = fraction(x - x1, y - y1, dx, dy);
+		match.edge = e;
+		match.latitude = p1_latitudes[e] + (int) Math.round(t * ((long) p2_latitudes[e] - p1_latitudes[e]));
+		match.longitude = p1_longitudes[e] + (int) Math.round(t * ((long) p2_longitudes[e] - p1_longitudes[e]));
+		match.offset = t * Math.sqrt(dx * dx + dy * dy);
+		match.distance = distance;
+	}
+
+	/**
+	 * Returns the fraction of the way along (dx, dy) where the projection of
+	 * (px, py) falls, clamped to [0, 1].
+	 **/
+	private static double fraction(double px, double py, double dx, double dy) {
+		double squared = dx * dx + dy * dy;
+		if (squared == 0)
+			return 0;
+		return Math.max(0, Math.min(1, (px * dx + py * dy) / squared));
+	}
+
+	/**
+	 * Returns whether edge e intersects a box: their bounding boxes overlap
+	 * and the corners of the box are not all strictly on one side of the
+	 * line through e.
+	 **/
+	private boolean intersects(int e, int min_lat, int min_lon, int max_lat, int max_lon) {
+		long y1 = p1_latitudes[e], x1 = p1_longitudes[e], y2 = p2_latitudes[e], x2 = p2_longitudes[e];
+		if (Math.max(y1, y2) < min_lat || Math.min(y1, y2) > max_lat
+				|| Math.max(x1, x2) < min_lon || Math.min(x1, x2) > max_lon)
+			return false;
+		long a = side(x1, y1, x2, y2, min_lon, min_lat), b = side(x1, y1, x2, y2, max_lon, min_lat);
+		long c = side(x1, y1, x2, y2, min_lon, max_lat), d = side(x1, y1, x2, y2, max_lon, max_lat);
+		return !((a > 0 && b > 0 && c > 0 && d > 0) || (a < 0 && b < 0 && c < 0 && d < 0));
+	}
+
+	private static long side(long x1, long y1, long x2, long y2, long x, long y) {
+		return Long.signum((x2 - x1) * (y - y1) - (y2 - y1) * (x - x1));
+	}
+
+	private int row(int latitude) {
+		long r = ((long) latitude - min_latitude) / cell_height;
+		return (int) Math.max(0, Math.min(rows - 1, r));
+	}
+
+	private int column(int longitude) {
+		long c = ((long) longitude - min_longitude) / cell_width;
+		return (int) Math.max(0, Math.min(columns - 1, c));
+	}
+
+	private static void siftUp(int[] heap, double[] keys, int i, int item, double key) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[parent] >= key)
+				break;
+			heap[i] = heap[parent];
+			keys[i] = keys[parent];
+			i = parent;
+		}
+		heap[i] = item;
+		keys[i] = key;
+	}
+
+	private static void siftDown(int[] heap, double[] keys, int size, int i, int item, double key) {
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && keys[child + 1] > keys[child])
+				++child;
+			if (key >= keys[child])
+				break;
+			heap[i] = heap[child];
+			keys[i] = keys[child];
+			i = child;
+		}
+		heap[i] = item;
+		keys[i] = key;
+	}
+}
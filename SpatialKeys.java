@@ -0,0 +1,236 @@
+package homework1;
+
+/**
+ * SpatialKeys encodes GeoPoints as Z-order (Morton) keys and as geohashes.
+ * <p>
+ * A Morton key interleaves the bits of a point's latitude and longitude,
+ * taken as offsets from MIN_LATITUDE and MIN_LONGITUDE in millionths of
+ * degrees, with the longitude in the even bits. Since GeoPoint coordinates
+ * are exact integers the encoding is lossless, and points that are close
+ * usually have close keys, which makes the key a good sort, partition or
+ * sharding key. Every key of a valid point is non-negative, so keys
+ * compare the same signed and unsigned.
+ * <p>
+ * A geohash is the usual base-32 string naming a cell of a recursive
+ * subdivision of the world (longitude first). Decoding yields the cell,
+ * not the exact point.
+ **/
+public final class SpatialKeys {
+
+	private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+	private static final int MAX_GEOHASH_LENGTH = 12;
+
+	/** The bits of a Morton key that hold the longitude. **/
+	static final long LONGITUDE_BITS = 0x5555555555555555L;
+	/** The bits of a Morton key that hold the latitude. **/
+	static final long LATITUDE_BITS = 0xAAAAAAAAAAAAAAAAL;
+
+	private SpatialKeys() {
+	}
+
+	/**
+	 * Computes the Morton key of a point.
+	 * @requires gp != null
+	 * @return mortonKey(gp.getLatitude(), gp.getLongitude())
+	 **/
+	public static long mortonKey(GeoPoint gp) {
+		return mortonKey(gp.getLatitude(), gp.getLongitude());
+	}
+
+	/**
+	 * Computes the Morton key of a point given in millionths of degrees.
+	 * @requires (latitude, longitude) is a valid GeoPoint
+	 * @return the key whose odd bits are latitude - MIN_LATITUDE and whose
+	 *         even bits are longitude - MIN_LONGITUDE
+	 **/
+	public static long mortonKey(int latitude, int longitude) {
+		return (spread(latitude - GeoPoint.MIN_LATITUDE) << 1) | spread(longitude - GeoPoint.MIN_LONGITUDE);
+	}
+
+	/**
+	 * Decodes the latitude of a Morton key.
+	 * @requires key = mortonKey(latitude, longitude) for some valid point
+	 * @return latitude
+	 **/
+	public static int mortonLatitude(long key) {
+		return compact(key >>> 1) + GeoPoint.MIN_LATITUDE;
+	}
+
+	/**
+	 * Decodes the longitude of a Morton key.
+	 * @requires key = mortonKey(latitude, longitude) for some valid point
+	 * @return longitude
+	 **/
+	public static int mortonLongitude(long key) {
+		return compact(key) + GeoPoint.MIN_LONGITUDE;
+	}
+
+	/**
+	 * Decodes a Morton key.
+	 * @requires key = mortonKey(gp) for some GeoPoint gp
+	 * @return a new GeoPoint equal to gp
+	 **/
+	public static GeoPoint fromMortonKey(long key) {
+		return new GeoPoint(mortonLatitude(key), mortonLongitude(key));
+	}
+
+	/**
+	 * Spreads the 32 bits of value into the even bits of a long.
+	 **/
+	private static long spread(int value) {
+		long x = value & 0xFFFFFFFFL;
+		x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x << 2)) & 0x3333333333333333L;
+		x = (x | (x << 1)) & 0x5555555555555555L;
+		return x;
+	}
+
+	/**
+	 * Gathers the even bits of a long into an int; the inverse of spread.
+	 **/
+	private static int compact(long key) {
+		long x = key & 0x5555555555555555L;
+		x = (x | (x >>> 1)) & 0x3333333333333333L;
+		x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+		return (int) x;
+	}
+
+	/**
+	 * Computes the geohash of a point.
+	 * @requires gp != null && 1 <= length <= 12
+	 * @return the geohash, length characters long, of the cell containing gp
+	 **/
+	public static String geohash(GeoPoint gp, int length) {
+		if (length < 1 || length > MAX_GEOHASH_LENGTH)
+			throw new IllegalArgumentException("geohash length must be in [1, 12]: " + length);
+		// bisect in millionths of degrees; all midpoints are exact doubles
+		double lat_lo = GeoPoint.MIN_LATITUDE, lat_hi = GeoPoint.MAX_LATITUDE;
+		double lon_lo = GeoPoint.MIN_LONGITUDE, lon_hi = GeoPoint.MAX_LONGITUDE;
+		int latitude = gp.getLatitude(), longitude = gp.getLongitude();
+		char[] hash = new char[length];
+		boolean even = true;
+		for (int i = 0; i < length; ++i) {
+			int digit = 0;
+			for (int bit = 0; bit < 5; ++bit) {
+				digit <<= 1;
+				if (even) {
+					double mid = (lon_lo + lon_hi) / 2;
+					if (longitude >= mid) {
+						digit |= 1;
+						lon_lo = mid;
+					} else {
+						lon_hi = mid;
+					}
+				} else {
+					double mid = (lat_lo + lat_hi) / 2;
+					if (latitude >= mid) {
+						digit |= 1;
+						lat_lo = mid;
+					} else {
+						lat_hi = mid;
+					}
+				}
+				even = !even;
+			}
+			hash[i] = BASE32.charAt(digit);
+		}
+		return new String(hash);
+	}
+
+	/**
+	 * Decodes the cell of a geohash.
+	 * @requires hash != null
+	 * @return {minLatitude, minLongitude, maxLatitude, maxLongitude} of the
+	 *         cell named by hash, in millionths of degrees
+	 * @throws IllegalArgumentException if hash is empty, longer than 12
+	 *         characters, or not made of geohash characters
+	 **/
+	public static double[] geohashBounds(String hash) {
+		if (hash.isEmpty() || hash.length() > MAX_GEOHASH_LENGTH)
+			throw new IllegalArgumentException("geohash length must be in [1, 12]: " + hash);
+		double lat_lo = GeoPoint.MIN_LATITUDE, lat_hi = GeoPoint.MAX_LATITUDE;
+		double lon_lo = GeoPoint.MIN_LONGITUDE, lon_hi = GeoPoint.MAX_LONGITUDE;
+		boolean even = true;
+		for (int i = 0; i < hash.length(); ++i) {
+			int digit = BASE32.indexOf(Character.toLowerCase(hash.charAt(i)));
+			if (digit < 0)
+				throw new IllegalArgumentException("not a geohash: " + hash);
+			for (int bit = 4; bit >= 0; --bit) {
+				boolean set = ((digit >> bit) & 1) != 0;
+				if (even) {
+					double mid = (lon_lo + lon_hi) / 2;
+					if (set)
+						lon_lo = mid;
+					else
+						lon_hi = mid;
+				} else {
+					double mid = (lat_lo + lat_hi) / 2;
+					if (set)
+						lat_lo = mid;
+					else
+						lat_hi = mid;
+				}
+				even = !even;
+			}
+		}
+		return new double[] { lat_lo, lon_lo, lat_hi, lon_hi };
+	}
+
+	/**
+	 * Decodes a geohash to the center of its cell.
+	 * @requires hash != null
+	 * @return a new GeoPoint at the center of the cell named by hash,
+	 *         rounded to millionths of degrees
+	 * @throws IllegalArgumentException as geohashBounds(hash)
+	 **/
+	public static GeoPoint geohashCenter(String hash) {
+		double[] bounds = geohashBounds(hash);
+		return new GeoPoint((int) Math.round((bounds[0] + bounds[2]) / 2),
+				(int) Math.round((bounds[1] + bounds[3]) / 2));
+	}
+
+	/**
+	 * Returns the smallest Morton key greater than key that lies in the box
+	 * spanned by the keys min and max (the BIGMIN of Tropf and Herzog).
+	 * @requires min <= max coordinate-wise && key lies outside the box
+	 *           && min < key < max
+	 * @return the smallest key k > key such that mortonLatitude(k) and
+	 *         mortonLongitude(k) are within the box
+	 **/
+	static long nextKeyInBox(long key, long min, long max) {
+		long result = 0;
+		for (int bit = 63; bit >= 0; --bit) {
+			long mask = 1L << bit;
+			// this bit and the lower bits of the same coordinate
+			long dimension = ((bit & 1) == 0 ? LONGITUDE_BITS : LATITUDE_BITS) & (mask | (mask - 1));
+			boolean k = (key & mask) != 0, lo = (min & mask) != 0, hi = (max & mask) != 0;
+			if (!k && !lo && hi) {
+				result = (min & ~dimension) | mask;
+				max = (max & ~dimension) | (dimension & ~mask);
+			} else if (!k && lo && hi) {
+				return min;
+			} else if (k && !lo && !hi) {
+				return result;
+			} else if (k && !lo && hi) {
+				min = (min & ~dimension) | mask;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether a Morton key lies in a box.
+	 * @return true iff the point of key is within [minLatitude, maxLatitude]
+	 *         x [minLongitude, maxLongitude]
+	 **/
+	static boolean inBox(long key, int minLatitude, int minLongitude, int maxLatitude, int maxLongitude) {
+		int latitude = mortonLatitude(key), longitude = mortonLongitude(key);
+		return latitude >= minLatitude && latitude <= maxLatitude
+				&& longitude >= minLongitude && longitude <= maxLongitude;
+	}
+}
@@ -0,0 +1,156 @@
+package homework1;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A StreetNames is a dictionary of street names that gives every distinct
+ * name a dense int id, in the order the names were first added. It is
+ * thread-safe, and names are never removed.
+ * <p>
+ * GeoSegments take their names from the global dictionary
+ * (<tt>global()</tt>): a segment keeps the id of its name and the single
+ * String the dictionary holds for it, so a network with millions of
+ * "Hankin Road" segments holds one "Hankin Road", and two names are
+ * compared by comparing their ids. Other dictionaries hold the names of
+ * one RoadNetwork, or of one encoded message, and are used to write a
+ * subset of the names and to read them back; they are reclaimed with
+ * their owner.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   names : sequence of String   // the distinct names, by id
+ * </pre>
+ **/
+public final class StreetNames {
+
+	// The dictionary of GeoSegment names, and of Instruction name ids. It
+	// lives as long as the class, and only grows: every distinct name a
+	// GeoSegment is ever constructed with stays, with its map entry and
+	// array slot, about 100 bytes plus the characters of the name. That is
+	// bounded by the street names of the maps a program loads, but a
+	// program that builds segments from unbounded input (for example names
+	// of decoded messages) should keep those names in a table of its own,
+	// as RoadNetwork and InstructionCodec.Decoder do.
+	private static final StreetNames GLOBAL = new StreetNames();
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile String[] by_id = new String[64];
+	private volatile int size;
+
+	// Abs. Function for every StreetNames d:
+	// d.names = [d.by_id[0], d.by_id[1], ..., d.by_id[d.size - 1]]
+
+	// Rep. Invariant for every StreetNames d:
+	// 0 <= d.size <= d.by_id.length && d.by_id[0..size) are distinct and
+	//   not null && d.ids maps d.by_id[i] to i for all 0 <= i < d.size, and
+	//   nothing else
+
+	/**
+	 * Constructs an empty dictionary.
+	 * @effects constructs a new StreetNames d with d.names = []
+	 **/
+	public StreetNames() {
+	}
+
+	/**
+	 * Returns the dictionary GeoSegments take their names from.
+	 * @return the global StreetNames
+	 **/
+	public static StreetNames global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Returns the id of a name, adding the name if it is new.
+	 * @requires name != null
+	 * @modifies this
+	 * @effects appends name to this.names if it is not there
+	 * @return the i such that this.names[i] equals name
+	 **/
+	public int intern(String name) {
+		Integer id = ids.get(name);
+		if (id != null)
+			return id;
+		synchronized (this) {
+			id = ids.get(name);
+			if (id != null)
+				return id;
+			int next = size;
+			String[] current = by_id;
+			if (next == current.length)
+				by_id = current = Arrays.copyOf(current, next * 2);
+			current[next] = name;
+			size = next + 1;	// publishes the name before its id
+			ids.put(name, next);
+			return next;
+		}
+	}
+
+	/**
+	 * Returns the id of a name.
+	 * @requires name != null
+	 * @return the i such that this.names[i] equals name, or -1 if there is
+	 *         none
+	 **/
+	public int lookup(String name) {
+		Integer id = ids.get(name);
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * Returns a name by its id.
+	 * @requires 0 <= id < size()
+	 * @return this.names[id]
+	 **/
+	public String name(int id) {
+		if (id < 0 || id >= size)
+			throw new IndexOutOfBoundsException(id + " of " + size);
+		return by_id[id];
+	}
+
+	/**
+	 * Returns the number of names.
+	 * @return the length of this.names
+	 **/
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Writes the names, in id order.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects writes this.names to out in a form read() accepts
+	 * @throws IOException if writing to out fails
+	 **/
+	public void write(DataOutput out) throws IOException {
+		int count = size;
+		String[] current = by_id;
+		out.writeInt(count);
+		for (int i = 0; i < count; ++i)
+			out.writeUTF(current[i]);
+	}
+
+	/**
+	 * Reads names written by write().
+	 * @requires in != null
+	 * @modifies in
+	 * @return a new StreetNames d with d.names equal to the names written
+	 * @throws IOException if reading fails or in does not hold distinct
+	 *         names
+	 **/
+	public static StreetNames read(DataInput in) throws IOException {
+		int count = in.readInt();
+		if (count < 0)
+			throw new IOException("invalid name count " + count);
+		StreetNames dictionary = new StreetNames();
+		for (int i = 0; i < count; ++i)
+			if (dictionary.intern(in.readUTF()) != i)
+				throw new IOException("duplicate street name " + dictionary.name(i - 1));
+		return dictionary;
+	}
+}
@@ -0,0 +1,130 @@
+package homework1;
+
+/**
+ * TiledProjection measures distances and headings anywhere on the earth at
+ * the cost of the flat, near the Technion formula of GeoPoint.
+ * <p>
+ * The world is cut into tiles one degree of latitude high. For the edge of
+ * every tile the projection keeps the kilometers per millionth of a degree
+ * of latitude and of longitude on the WGS84 ellipsoid, so a pair of points
+ * is measured on a plane scaled for the latitude between them, with scale
+ * factors interpolated linearly from the two edges of its tile. The scale
+ * of the ellipsoid depends on latitude only, so tiles need not be divided
+ * by longitude; the whole table is 182 pairs of doubles.
+ * <p>
+ * A lookup is an integer division and two interpolations, with no branches
+ * and no allocation. The interpolated scales are within 0.005% of the
+ * exact ones, and for points less than 100 km apart within 70 degrees of
+ * the equator distances are within 0.02% of the ellipsoidal distance.
+ * <p>
+ * Points are given in millionths of degrees, as GeoPoint stores them.
+ **/
+public final class TiledProjection {
+
+	/** The height of a tile, in millionths of degrees. **/
+	public static final int TILE_SIZE = GeoPoint.MILLION;
+
+	/** The semi-major axis of the WGS84 ellipsoid, in kilometers. **/
+	private static final double SEMI_MAJOR_AXIS_KM = 6378.137;
+	/** The square of the eccentricity of the WGS84 ellipsoid. **/
+	private static final double ECCENTRICITY_SQUARED = (2 - 1 / 298.257223563) / 298.257223563;
+
+	private static final int TILES = (GeoPoint.MAX_LATITUDE - GeoPoint.MIN_LATITUDE) / TILE_SIZE;
+
+	// LATITUDE_SCALES[i] and LONGITUDE_SCALES[i] are the kilometers per
+	// millionth of a degree of latitude and of longitude at the latitude
+	// MIN_LATITUDE + i * TILE_SIZE; the last entry repeats the one before it
+	// so that MAX_LATITUDE, which starts a tile of its own, interpolates
+	// without a branch
+	private static final double[] LATITUDE_SCALES = new double[TILES + 2];
+	private static final double[] LONGITUDE_SCALES = new double[TILES + 2];
+
+	static {
+		for (int i = 0; i <= TILES; ++i) {
+			double phi = Math.toRadians((double) (GeoPoint.MIN_LATITUDE + (long) i * TILE_SIZE) / GeoPoint.MILLION);
+			double sin = Math.sin(phi);
+			double w = 1 - ECCENTRICITY_SQUARED * sin * sin;
+			double meridian = SEMI_MAJOR_AXIS_KM * (1 - ECCENTRICITY_SQUARED) / (w * Math.sqrt(w));
+			double normal = SEMI_MAJOR_AXIS_KM / Math.sqrt(w);
+			double per_unit = Math.PI / 180 / GeoPoint.MILLION;
+			LATITUDE_SCALES[i] = meridian * per_unit;
+			LONGITUDE_SCALES[i] = Math.max(0, normal * Math.cos(phi)) * per_unit;
+		}
+		LATITUDE_SCALES[TILES + 1] = LATITUDE_SCALES[TILES];
+		LONGITUDE_SCALES[TILES + 1] = LONGITUDE_SCALES[TILES];
+	}
+
+	private TiledProjection() {
+	}
+
+	/**
+	 * Returns the tile of a latitude.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE
+	 * @return the index of the tile that holds latitude, counted from the
+	 *         south pole, in [0, 180]
+	 **/
+	public static int tile(int latitude) {
+		return (latitude - GeoPoint.MIN_LATITUDE) / TILE_SIZE;
+	}
+
+	/**
+	 * Returns the length of a millionth of a degree of latitude.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE
+	 * @return the kilometers per millionth of a degree of latitude at
+	 *         latitude
+	 **/
+	public static double kmPerLatitudeUnit(int latitude) {
+		return interpolate(LATITUDE_SCALES, latitude);
+	}
+
+	/**
+	 * Returns the length of a millionth of a degree of longitude.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE
+	 * @return the kilometers per millionth of a degree of longitude at
+	 *         latitude
+	 **/
+	public static double kmPerLongitudeUnit(int latitude) {
+		return interpolate(LONGITUDE_SCALES, latitude);
+	}
+
+	/**
+	 * Computes the distance between two points.
+	 * @requires (latitude1, longitude1) and (latitude2, longitude2) are
+	 *           valid GeoPoints
+	 * @return the distance between them, in kilometers, on the plane scaled
+	 *         for their mean latitude
+	 **/
+	public static double distance(int latitude1, int longitude1, int latitude2, int longitude2) {
+		int middle = (int) (((long) latitude1 + latitude2) >> 1);
+		double dy = (latitude2 - latitude1) * interpolate(LATITUDE_SCALES, middle);
+		double dx = GeoMetric.wrap(longitude2 - (long) longitude1) * interpolate(LONGITUDE_SCALES, middle);
+		return Math.sqrt(dy * dy + dx * dx);
+	}
+
+	/**
+	 * Computes the compass heading between two points.
+	 * @requires (latitude1, longitude1) and (latitude2, longitude2) are
+	 *           valid GeoPoints
+	 * @return the compass heading h from the first to the second, in
+	 *         degrees, on the plane scaled for their mean latitude, such
+	 *         that 0 <= h < 360; 0 if the points are equal
+	 **/
+	public static double heading(int latitude1, int longitude1, int latitude2, int longitude2) {
+		int middle = (int) (((long) latitude1 + latitude2) >> 1);
+		double dy = (latitude2 - latitude1) * interpolate(LATITUDE_SCALES, middle);
+		double dx = GeoMetric.wrap(longitude2 - (long) longitude1) * interpolate(LONGITUDE_SCALES, middle);
+		double deg = Math.toDegrees(Math.atan2(dx, dy));
+		return (deg < 0) ? (deg + 360) : deg;
+	}
+
+	/**
+	 * Interpolates a table of tile edges linearly at a latitude.
+	 **/
+	private static double interpolate(double[] scales, int latitude) {
+		int offset = latitude - GeoPoint.MIN_LATITUDE;
+		int i = offset / TILE_SIZE;
+		double fraction = (double) (offset - i * TILE_SIZE) / TILE_SIZE;
+		double low = scales[i];
+		return low + fraction * (scales[i + 1] - low);
+	}
+}
@@ -0,0 +1,67 @@
+package homework1;
+
+/**
+ * A Turn is the change of direction at the start of a line of directions,
+ * as RouteFormatters describe it. Each Turn has a fixed phrase, shared by
+ * every line that uses it.
+ * <p>
+ * Turns are classified by the absolute difference a between the old and
+ * the new heading, exactly as the lines of the formatters have always been
+ * written:
+ * <pre>
+ * CONTINUE       if a < 10
+ * SLIGHT_RIGHT   if 10 <= a < 60
+ * RIGHT          if 60 <= a < 120
+ * SHARP_RIGHT    if 120 <= a < 179
+ * U_TURN         if a == 180
+ * LEFT           otherwise
+ * </pre>
+ * The difference is not reduced to a signed angle, so for example a
+ * change from 350 to 10 degrees is a LEFT; and the phrase of RIGHT ends in
+ * two spaces. Both are part of the established output and are kept.
+ **/
+public enum Turn {
+
+	CONTINUE("Continue "),
+	SLIGHT_RIGHT("Turn slight right "),
+	RIGHT("Turn right  "),
+	SHARP_RIGHT("Turn sharp right "),
+	U_TURN("U-turn "),
+	LEFT("Turn left ");
+
+	private final String phrase;
+
+	private Turn(String phrase) {
+		this.phrase = phrase;
+	}
+
+	/**
+	 * Returns the phrase that starts a line with this turn.
+	 * @return the phrase of this turn, followed by its trailing space(s)
+	 **/
+	public String phrase() {
+		return phrase;
+	}
+
+	/**
+	 * Classifies a change of heading.
+	 * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+	 * @return the Turn for the absolute difference between the headings,
+	 *         as given in the class description
+	 **/
+	public static Turn of(double origHeading, double newHeading) {
+		double heading = Math.abs(newHeading - origHeading);
+		if (heading < 10)
+			return CONTINUE;
+		else if (heading < 60)
+			return SLIGHT_RIGHT;
+		else if (heading < 120)
+			return RIGHT;
+		else if (heading < 179)
+			return SHARP_RIGHT;
+		else if (heading == 180)
+			return U_TURN;
+		else
+			return LEFT;
+	}
+}
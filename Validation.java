@@ -0,0 +1,185 @@
+package homework1;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validation controls how often the classes of this package check their
+ * representation invariants, and counts how much time those checks take.
+ * <p>
+ * Each class reads its level once, when it is loaded, into a
+ * <tt>static final</tt> field, so when validation is OFF the JIT folds the
+ * checks away entirely. The level of a class is taken from the system
+ * property <tt>homework1.validation.&lt;SimpleClassName&gt;</tt> if it is
+ * set, otherwise from <tt>homework1.validation</tt>, and otherwise defaults
+ * to ON_CONSTRUCTION when assertions are enabled (<tt>-ea</tt>) and to OFF
+ * when they are not. For example:
+ * <pre>
+ *   java -ea -Dhomework1.validation=SAMPLED -Dhomework1.validation.Route=FULL ...
+ * </pre>
+ * Sampled checks run on one access in <tt>homework1.validation.samplePeriod</tt>
+ * (64 by default).
+ * <p>
+ * A failed check throws an AssertionError, as the <tt>assert</tt>
+ * statements it replaces did.
+ **/
+public final class Validation {
+
+	/**
+	 * How thoroughly the representation invariant of a class is checked.
+	 **/
+	public enum Level {
+		/** Never check. **/
+		OFF,
+		/** Check when an object is created. Objects that extend an existing
+		 *  object check only the part they add. **/
+		ON_CONSTRUCTION,
+		/** As ON_CONSTRUCTION, and also fully check a random sample of
+		 *  accesses. **/
+		SAMPLED,
+		/** Fully check on creation and on every access. **/
+		FULL
+	}
+
+	/**
+	 * Time and number of the invariant checks of one class. Counters are
+	 * thread-safe.
+	 **/
+	public static final class Counter {
+		private final LongAdder checks = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private Counter() {
+		}
+
+		/**
+		 * Returns the number of invariant checks done so far.
+		 * @return the number of invariant checks done so far.
+		 **/
+		public long checks() {
+			return checks.sum();
+		}
+
+		/**
+		 * Returns the time spent in invariant checks so far.
+		 * @return the time spent in invariant checks so far, in nanoseconds.
+		 **/
+		public long nanos() {
+			return nanos.sum();
+		}
+
+		/**
+		 * Sets both counters back to zero.
+		 * @modifies this
+		 * @effects this.checks() = 0 && this.nanos() = 0
+		 **/
+		public void reset() {
+			checks.reset();
+			nanos.reset();
+		}
+
+		@Override
+		public String toString() {
+			return checks() + " checks, " + (nanos() / 1000) + " us";
+		}
+	}
+
+	/** Name of the system property holding the default level. **/
+	public static final String PROPERTY = "homework1.validation";
+
+	private static final int SAMPLE_PERIOD = Integer.getInteger(PROPERTY + ".samplePeriod", 64);
+
+	private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+	private Validation() {
+	}
+
+	/**
+	 * Returns the validation level configured for a class.
+	 * @requires c != null
+	 * @return the level named by the system property
+	 *         homework1.validation.&lt;c's simple name&gt; or, if it is not
+	 *         set, by homework1.validation or, if it is not set either,
+	 *         ON_CONSTRUCTION if assertions are enabled and OFF otherwise.
+	 * @throws IllegalArgumentException if a property names no Level
+	 **/
+	public static Level levelFor(Class<?> c) {
+		String value = System.getProperty(PROPERTY + "." + c.getSimpleName(),
+				System.getProperty(PROPERTY));
+		if (value == null) {
+			boolean assertions = false;
+			assert assertions = true;
+			return assertions ? Level.ON_CONSTRUCTION : Level.OFF;
+		}
+		return Level.valueOf(value.trim().toUpperCase());
+	}
+
+	/**
+	 * Returns the Counter that records the invariant checks of a class.
+	 * @requires c != null
+	 * @return the Counter of c; the same Counter is returned on every call.
+	 **/
+	public static Counter counterFor(Class<?> c) {
+		return counters.computeIfAbsent(c.getSimpleName(), name -> new Counter());
+	}
+
+	/**
+	 * Returns the Counters of all classes that have one.
+	 * @return an unmodifiable map from simple class names to their Counters,
+	 *         sorted by name.
+	 **/
+	public static Map<String, Counter> counters() {
+		return Collections.unmodifiableMap(new TreeMap<>(counters));
+	}
+
+	/**
+	 * Returns whether a newly created object should be checked.
+	 * @return level != OFF
+	 **/
+	static boolean onConstruction(Level level) {
+		return level != Level.OFF;
+	}
+
+	/**
+	 * Returns whether an access to an existing object should be fully
+	 * checked. For SAMPLED, true is returned for about one call in the
+	 * sample period.
+	 * @return level == FULL || (level == SAMPLED && this access is sampled)
+	 **/
+	static boolean onAccess(Level level) {
+		return level == Level.FULL
+				|| (level == Level.SAMPLED && ThreadLocalRandom.current().nextInt(SAMPLE_PERIOD) == 0);
+	}
+
+	/**
+	 * Returns the time to pass to finish() when a check completes.
+	 * @return the current value of System.nanoTime()
+	 **/
+	static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records a completed invariant check.
+	 * @requires counter != null && startTime was returned by start()
+	 * @modifies counter
+	 * @effects adds one check and the time elapsed since startTime to counter
+	 **/
+	static void finish(Counter counter, long startTime) {
+		counter.nanos.add(System.nanoTime() - startTime);
+		counter.checks.increment();
+	}
+
+	/**
+	 * Checks one clause of a representation invariant.
+	 * @throws AssertionError with the given message if !condition
+	 **/
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+}
@@ -0,0 +1,144 @@
+package homework1;
+
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+public class ValidationTest {
+
+	private static final String[] CLASSES = { "GeoSegment", "GeoFeature", "Route" };
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	/**
+	 * Runs operations() in a fresh copy of this package, whose classes read
+	 * their validation level when they are loaded, with the checked classes
+	 * at the given level.
+	 * @return the result of operations(), or null if it threw
+	 **/
+	private long[] atLevel(String level, int samplePeriod) {
+		String[] saved = new String[CLASSES.length + 1];
+		for (int i = 0; i < CLASSES.length; ++i)
+			saved[i] = System.setProperty(Validation.PROPERTY + "." + CLASSES[i], level);
+		saved[CLASSES.length] = System.setProperty(Validation.PROPERTY + ".samplePeriod", Integer.toString(samplePeriod));
+		URL classes = ValidationTest.class.getProtectionDomain().getCodeSource().getLocation();
+		try (URLClassLoader copy = new URLClassLoader(new URL[] { classes }, null)) {
+			return (long[]) Class.forName(ValidationTest.class.getName(), true, copy)
+				.getDeclaredMethod("operations").invoke(null);
+		} catch (InvocationTargetException e) {
+			System.out.println(e.getCause());
+			return null;
+		} catch (Exception e) {
+			System.out.println(e);
+			return null;
+		} finally {
+			for (int i = 0; i < CLASSES.length; ++i)
+				restore(Validation.PROPERTY + "." + CLASSES[i], saved[i]);
+			restore(Validation.PROPERTY + ".samplePeriod", saved[CLASSES.length]);
+		}
+	}
+
+
+	private static void restore(String property, String value) {
+		if (value == null)
+			System.clearProperty(property);
+		else
+			System.setProperty(property, value);
+	}
+
+
+	/**
+	 * Creates and reads GeoSegments, a GeoFeature and a Route, and counts
+	 * the invariant checks of each class. Every object is read 20 times.
+	 * @return { checks while building, checks while reading, nanoseconds
+	 *         spent checking while reading } for GeoSegment, GeoFeature and
+	 *         Route, in that order
+	 **/
+	public static long[] operations() {
+		Validation.Counter segments = Validation.counterFor(GeoSegment.class);
+		Validation.Counter features = Validation.counterFor(GeoFeature.class);
+		Validation.Counter routes = Validation.counterFor(Route.class);
+		GeoPoint p1 = new GeoPoint(32783098, 35014528);
+		GeoPoint p2 = new GeoPoint(32783098, 35025202);
+		GeoPoint p3 = new GeoPoint(32783098, 35035876);
+		GeoPoint p4 = new GeoPoint(32792115, 35035876);
+		long[] counts = new long[9];
+
+		segments.reset();
+		GeoSegment gsEast = new GeoSegment("East", p1, p2);
+		GeoSegment gsEast2 = new GeoSegment("East", p2, p3);
+		GeoSegment gsNorth = new GeoSegment("North", p3, p4);
+		counts[0] = segments.checks();
+		segments.reset();
+		for (int i = 0; i < 10; ++i) {
+			gsEast.getLength();
+			gsEast.getHeading();
+		}
+		counts[1] = segments.checks();
+		counts[2] = segments.nanos();
+
+		features.reset();
+		GeoFeature feature = new GeoFeature(gsEast).addSegment(gsEast2);
+		counts[3] = features.checks();
+		features.reset();
+		for (int i = 0; i < 10; ++i) {
+			feature.getLength();
+			feature.geoSegmentList();
+		}
+		counts[4] = features.checks();
+		counts[5] = features.nanos();
+
+		routes.reset();
+		Route route = new Route(gsEast).addSegment(gsEast2).addSegment(gsNorth);
+		counts[6] = routes.checks();
+		routes.reset();
+		for (int i = 0; i < 10; ++i) {
+			route.getLength();
+			route.geoFeatureList();
+		}
+		counts[7] = routes.checks();
+		counts[8] = routes.nanos();
+		return counts;
+	}
+
+
+	public void test() {
+		show("Validation");
+		long[] full = atLevel("FULL", 64);
+		show("Route, GeoFeature and GeoSegment operations run at FULL", full != null);
+		boolean everyAccess = full != null;
+		for (int c = 0; everyAccess && c < 3; ++c)
+			everyAccess = full[3 * c + 1] == 20 && full[3 * c + 2] > 0;
+		show("FULL checks every access and counts the time it takes", everyAccess);
+		// addSegment() checks the object it extends as well as the new one
+		show("FULL checks every new object", full != null && full[0] == 3 && full[3] == 3 && full[6] == 5);
+
+		long[] rarely = atLevel("SAMPLED", Integer.MAX_VALUE);
+		show("Route, GeoFeature and GeoSegment operations run at SAMPLED", rarely != null);
+		show("SAMPLED checks each new object once", rarely != null
+			&& rarely[0] == 3 && rarely[3] == 2 && rarely[6] == 3);
+		boolean unsampled = rarely != null;
+		for (int c = 0; unsampled && c < 3; ++c)
+			unsampled = rarely[3 * c + 1] == 0 && rarely[3 * c + 2] == 0;
+		show("SAMPLED checks no access that is not sampled", unsampled);
+		long[] always = atLevel("SAMPLED", 1);
+		boolean likeFull = always != null && full != null;
+		for (int c = 0; likeFull && c < 3; ++c)
+			likeFull = always[3 * c] == full[3 * c] && always[3 * c + 1] == full[3 * c + 1];
+		show("SAMPLED with a sample period of 1 checks as often as FULL", likeFull);
+	}
+}
@@ -1,6 +1,6 @@
 package homework1;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
 
 /**
  * A WalkingDirections class knows how to create a textual description of
@@ -26,18 +26,34 @@ import java.text.DecimalFormat;
  **/
 public class WalkingRouteFormatter extends RouteFormatter {
 
+	/** Walking pace of a normal person. **/
+	public static final int MINUTES_PER_KM = 20;
+
+	/** Walking speed of a normal person. **/
+	public static final double WALKING_SPEED  =  (1.0/MINUTES_PER_KM); //km per minute
+
+	/**
+	 * Computes the walking time reported for a distance.
+	 * @requires km >= 0
+	 * @return the time, in minutes, to walk km kilometers at MINUTES_PER_KM,
+	 *         rounded to the nearest minute as in the lines of
+	 *         computeLine()
+	 **/
+	static int walkingMinutes(double km) {
+		return (int)Math.rint(km*MINUTES_PER_KM);
+	}
+
   	/**
-     * Computes a single line of a multi-line directions String that
-     * represents the instructions for walking along a single geographic
-     * feature.
-     * @requires 0 <= origHeading < 360
-     * @param geoFeature the geographical feature to traverse.
-     * @param origHeading the initial heading.
-     * @return A newline-terminated <tt>String</tt> that gives directions
-     * 		   on how to walk along this geographical feature.<br>
-     * Calling <tt>computeLine</tt> with a GeoFeature instance and an
-     * initial heading should produce a newline-terminated String in the
-     * following form:
+     * Writes a single line of directions for walking along a single
+     * geographic feature, with the specified turn, name and length.
+     * @requires turn != null && name != null && length_mm >= 0 && out != null
+     * @param turn the turn onto the feature.
+     * @param name the name of the feature.
+     * @param length_mm the length of the feature, in millimeters.
+     * @param out where to write the line.
+     * @modifies out
+     * @effects appends to out a newline-terminated line in the following
+     * form:
      * <p>
      * <tt>
      * Turn sharp left onto Hanita and walk for 27 minutes.<br>
@@ -50,22 +66,14 @@ public class WalkingRouteFormatter extends RouteFormatter {
      * reported to the nearest minute. Each line should be terminated by a
      * newline and should include no extra spaces other than those shown
      * above.
+     * @throws IOException if appending to out fails
      **/
-
-	/** Walking speed of a normal person. **/
-	public static final double WALKING_SPEED  =  (1/20); //km per minute
-
-  	public String computeLine(GeoFeature geoFeature, double origHeading) {
-		// Implementation hint:
-		// You may find the class java.text.DecimalFormat useful when
-		// implementing this method. More info can be found at:
-		// http://docs.oracle.com/javase/tutorial/java/data/numberformat.html
-		// and at:
-		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
-		String heading = getTurnString(origHeading, geoFeature.getStartHeading());
-		double len = geoFeature.getLength()*20;
-		int walking_time = (int)Math.rint(len);
-		String str = heading + "onto " + geoFeature.getName() + " and walk for " + walking_time + " minutes.\n";
-		return str;
+  	@Override
+  	public void appendLine(Turn turn, String name, long length_mm, Appendable out) throws IOException {
+		out.append(turn.phrase())
+			.append("onto ").append(name)
+			.append(" and walk for ");
+		appendDecimal(out, walkingMinutes(Lengths.toKilometers(length_mm)));
+		out.append(" minutes.\n");
   	}
 }